@@ -0,0 +1,43 @@
+package tutorscheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+/**
+ * Writes synthetic supervisor, tutor and room files for the benchmarks, with
+ * a config for a week of matching size.
+ *
+ * @author Stephanie Deen
+ */
+class BenchmarkData {
+
+    private static final int SUPERVISORS = 2;
+    private static final double DENSITY = 0.5; // chance of being available in a slot
+
+    /**
+     * Writes data files for a week of the given number of slots (five days)
+     * into a new temporary directory.
+     *
+     * @param tutors number of tutors
+     * @param rooms number of rooms
+     * @param slotsPerWeek number of time slots in the week, a multiple of 5
+     * @return config reading the files, sized to the week
+     * @throws IOException if the files cannot be written
+     */
+    static RunConfig write(int tutors, int rooms, int slotsPerWeek) throws IOException {
+        File dir = Files.createTempDirectory("tutorscheduler-bench").toFile();
+        // deleted on exit in reverse order, so the files go before the directory
+        dir.deleteOnExit();
+        new DataGenerator(SUPERVISORS, tutors, rooms, slotsPerWeek, 1, DENSITY, 42).write(dir);
+        for (File file : dir.listFiles()) {
+            file.deleteOnExit();
+        }
+        
+        return RunConfig.defaults()
+                .withDataPath(dir.getPath())
+                .withDaysAWeek(5)
+                .withHoursADay(slotsPerWeek / 5)
+                .withHoursAWeek(slotsPerWeek * 36 / 50);
+    }
+}
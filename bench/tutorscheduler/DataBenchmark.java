@@ -0,0 +1,51 @@
+package tutorscheduler;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks loading the supervisor, tutor and room files into Data.
+ *
+ * @author Stephanie Deen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DataBenchmark {
+
+    @Param({"5", "100", "1000"})
+    int tutors;
+
+    @Param({"2", "20", "200"})
+    int rooms;
+
+    @Param({"50", "100"})
+    int slotsPerWeek;
+
+    private RunConfig config;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        config = BenchmarkData.write(tutors, rooms, slotsPerWeek);
+    }
+
+    @Benchmark
+    public Data load() {
+        return new Data(config);
+    }
+}
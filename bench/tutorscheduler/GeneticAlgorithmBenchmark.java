@@ -0,0 +1,92 @@
+package tutorscheduler;
+
+import java.io.IOException;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks the hot paths of the genetic algorithm: fitness evaluation, 
+ * mutation, crossover, tournament selection and a full generation.
+ *
+ * @author Stephanie Deen
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneticAlgorithmBenchmark {
+
+    @Param({"5", "100", "1000"})
+    int tutors;
+
+    @Param({"2", "20", "200"})
+    int rooms;
+
+    @Param({"50", "100"})
+    int slotsPerWeek;
+
+    @Param({"20", "200"})
+    int populationSize;
+
+    private GeneticAlgorithm ga;
+    private Population population;
+    private Schedule s1;
+    private Schedule s2;
+    private Random rand;
+
+    @Setup(Level.Trial)
+    public void setUpData() throws IOException {
+        Data data = new Data(BenchmarkData.write(tutors, rooms, slotsPerWeek)
+                .withPopulationSize(populationSize));
+        ga = new GeneticAlgorithm(data);
+        rand = new Random(42);
+        population = new Population(data);
+    }
+
+    @Setup(Level.Iteration)
+    public void setUpSchedules() {
+        s1 = new Schedule(population.getSchedule(0));
+        s2 = new Schedule(population.getSchedule(1));
+    }
+
+    @Benchmark
+    public int calcFitness() {
+        s1.calcFitness();
+        return s1.getFitness();
+    }
+
+    @Benchmark
+    public Schedule mutate() {
+        return ga.mutate(s1, rand);
+    }
+
+    @Benchmark
+    public Schedule crossover() {
+        return ga.crossover(s1, s2, rand);
+    }
+
+    @Benchmark
+    public Schedule tournamentSelection() {
+        return ga.tournamentSelection(population, rand);
+    }
+
+    @Benchmark
+    public Population evolve() {
+        population = ga.evolve(population);
+        return population;
+    }
+}
@@ -0,0 +1,269 @@
+package tutorscheduler;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Builds a schedule directly instead of evolving one.  Within a week the only
+ * thing that ties the slots together is each person's hours, which score
+ * best when they are more than 0 and under the person's max.  So each week is
+ * solved as two max flow problems over the slots where a room is free:
+ * tutors to slots, then supervisors to the slots the tutors took, with every
+ * person given one slot before anyone is given a second and no one given as
+ * many as their max.  Slots left without an available supervisor are then
+ * repaired one at a time, and a short local search polishes the result.
+ * The same data always gives the same schedule.
+ *
+ * @author Stephanie Deen
+ */
+public class AssignmentSolver {
+
+    private static final int POLISH_STEPS = 500;
+
+    private final Data data;
+    private final RunConfig config;
+
+    /**
+     * Constructor
+     *
+     * @param data data to build the schedule from
+     */
+    public AssignmentSolver(Data data) {
+        this.data = data;
+        this.config = data.config;
+    }
+
+    /**
+     * Builds the schedule.
+     *
+     * @return schedule with every week solved
+     */
+    public Schedule solve() {
+        Schedule schedule = new Schedule(data, false);
+        int slotsPerWeek = config.slotsPerWeek();
+        for (int week=0; week<config.getWeeks(); week++) {
+            solveWeek(schedule, week*slotsPerWeek, slotsPerWeek);
+        }
+        schedule.calcFitness();
+
+        // polish with a fixed seed so the result stays deterministic
+        new LocalSearch(data, POLISH_STEPS, null).improve(schedule, new Random(0));
+        return schedule;
+    }
+
+    /**
+     * Fills one week of a schedule.
+     *
+     * @param schedule schedule to fill
+     * @param first index of the week's first slot
+     * @param slots number of slots in the week
+     */
+    private void solveWeek(Schedule schedule, int first, int slots) {
+        // slots where a session can be held at all
+        boolean[] open = new boolean[slots];
+        for (int s=0; s<slots; s++) {
+            open[s] = data.roomsBySlot[first+s].length > 0
+                    && data.supervisorsBySlot[first+s].length > 0;
+        }
+
+        int[] tutorOf = assign(data.tutors, first, open, config.getHoursAWeek());
+        boolean[] taken = new boolean[slots];
+        for (int s=0; s<slots; s++) {
+            taken[s] = tutorOf[s] >= 0;
+        }
+        int[] supervisorOf = assign(data.supervisors, first, taken, slots);
+
+        for (int s=0; s<slots; s++) {
+            if (tutorOf[s] < 0) continue;
+            int slot = first + s;
+            int room = data.roomsBySlot[slot][0];
+            if (supervisorOf[s] >= 0) {
+                schedule.setGene(Session.encode(room, tutorOf[s], supervisorOf[s]), slot);
+            } else {
+                repair(schedule, slot, room, tutorOf[s]);
+            }
+        }
+    }
+
+    /**
+     * Gives a slot whose supervisors were all at their limit whichever
+     * supervisor scores best, or leaves it empty if that scores better.
+     */
+    private void repair(Schedule schedule, int slot, int room, int tutor) {
+        long bestGene = Session.EMPTY;
+        double bestScore = schedule.exactFitness();
+        for (int supervisor=0; supervisor<data.supervisors.size(); supervisor++) {
+            long gene = Session.encode(room, tutor, supervisor);
+            schedule.setGene(gene, slot);
+            if (schedule.exactFitness() > bestScore) {
+                bestScore = schedule.exactFitness();
+                bestGene = gene;
+            }
+        }
+        schedule.setGene(bestGene, slot);
+    }
+
+    /**
+     * Assigns people of one role to slots of a week with max flow.  First
+     * every person who can be is given one slot, then the flow is raised to
+     * each person's max hours less one.  Raising the flow never takes a
+     * person's only slot away, so no one covered in the first pass is left
+     * out.
+     *
+     * @param people components of the role
+     * @param first index of the week's first slot
+     * @param usable slots of the week that may be assigned
+     * @param limit most slots to assign
+     * @return for each slot of the week, the id of the person assigned to
+     * it, or -1
+     */
+    private static int[] assign(List<Component> people, int first, boolean[] usable, int limit) {
+        int n = people.size();
+        int slots = usable.length;
+        // nodes: source, people, slots, hub (caps the total), sink
+        int source = 0, hub = n + slots + 1, sink = n + slots + 2;
+        MaxFlow flow = new MaxFlow(n + slots + 3);
+        int[] sourceEdge = new int[n];
+        for (int p=0; p<n; p++) {
+            sourceEdge[p] = flow.addEdge(source, 1 + p, 0);
+            for (int s=0; s<slots; s++) {
+                if (usable[s] && people.get(p).isAvailable(first + s)) {
+                    flow.addEdge(1 + p, 1 + n + s, 1);
+                }
+            }
+        }
+        for (int s=0; s<slots; s++) {
+            flow.addEdge(1 + n + s, hub, 1);
+        }
+        flow.addEdge(hub, sink, limit);
+
+        // one slot each, then up to the hours that still score as good
+        for (int p=0; p<n; p++) {
+            flow.setCapacity(sourceEdge[p], 1);
+        }
+        flow.run(source, sink);
+        for (int p=0; p<n; p++) {
+            flow.setCapacity(sourceEdge[p], Math.max(1, people.get(p).getMaxHours() - 1));
+        }
+        flow.run(source, sink);
+
+        int[] assigned = new int[slots];
+        Arrays.fill(assigned, -1);
+        for (int p=0; p<n; p++) {
+            for (int e : flow.edgesFrom(1 + p)) {
+                if (flow.isSaturated(e)) assigned[flow.to(e) - 1 - n] = p;
+            }
+        }
+        return assigned;
+    }
+
+    /**
+     * Dinic's max flow over integer capacities.  Edges are stored in pairs,
+     * each forward edge followed by its residual.
+     */
+    private static class MaxFlow {
+        private final int nodes;
+        private int[] head, next, to, cap;
+        private int edges;
+        private final int[] level, iter;
+
+        MaxFlow(int nodes) {
+            this.nodes = nodes;
+            head = new int[nodes];
+            Arrays.fill(head, -1);
+            next = new int[16];
+            to = new int[16];
+            cap = new int[16];
+            level = new int[nodes];
+            iter = new int[nodes];
+        }
+
+        /**
+         * @return index of the new forward edge
+         */
+        int addEdge(int from, int dest, int capacity) {
+            if (edges + 2 > to.length) {
+                next = Arrays.copyOf(next, to.length*2);
+                cap = Arrays.copyOf(cap, to.length*2);
+                to = Arrays.copyOf(to, to.length*2);
+            }
+            int e = edges;
+            to[e] = dest; cap[e] = capacity; next[e] = head[from]; head[from] = e;
+            to[e+1] = from; cap[e+1] = 0; next[e+1] = head[dest]; head[dest] = e+1;
+            edges += 2;
+            return e;
+        }
+
+        /**
+         * Sets a forward edge's capacity, keeping the flow already on it.
+         */
+        void setCapacity(int e, int capacity) {
+            int used = cap[e^1];
+            cap[e] = Math.max(0, capacity - used);
+        }
+
+        boolean isSaturated(int e) {
+            return (e & 1) == 0 && cap[e] == 0 && cap[e^1] > 0;
+        }
+
+        int to(int e) {
+            return to[e];
+        }
+
+        int[] edgesFrom(int node) {
+            int count = 0;
+            for (int e=head[node]; e>=0; e=next[e]) count++;
+            int[] out = new int[count];
+            count = 0;
+            for (int e=head[node]; e>=0; e=next[e]) out[count++] = e;
+            return out;
+        }
+
+        /**
+         * Pushes as much more flow from source to sink as will fit.
+         */
+        void run(int source, int sink) {
+            while (bfs(source, sink)) {
+                System.arraycopy(head, 0, iter, 0, nodes);
+                while (dfs(source, sink, Integer.MAX_VALUE) > 0) {
+                    // keep pushing along the level graph
+                }
+            }
+        }
+
+        private boolean bfs(int source, int sink) {
+            Arrays.fill(level, -1);
+            ArrayDeque<Integer> queue = new ArrayDeque<>();
+            level[source] = 0;
+            queue.add(source);
+            while (!queue.isEmpty()) {
+                int v = queue.poll();
+                for (int e=head[v]; e>=0; e=next[e]) {
+                    if (cap[e] > 0 && level[to[e]] < 0) {
+                        level[to[e]] = level[v] + 1;
+                        queue.add(to[e]);
+                    }
+                }
+            }
+            return level[sink] >= 0;
+        }
+
+        private int dfs(int v, int sink, int pushed) {
+            if (v == sink) return pushed;
+            for (; iter[v]>=0; iter[v]=next[iter[v]]) {
+                int e = iter[v];
+                if (cap[e] > 0 && level[to[e]] == level[v] + 1) {
+                    int d = dfs(to[e], sink, Math.min(pushed, cap[e]));
+                    if (d > 0) {
+                        cap[e] -= d;
+                        cap[e^1] += d;
+                        return d;
+                    }
+                }
+            }
+            return 0;
+        }
+    }
+}
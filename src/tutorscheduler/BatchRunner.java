@@ -0,0 +1,202 @@
+package tutorscheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs many scheduling scenarios in one JVM, a bounded number at a time.
+ * Each scenario has its own RunConfig, so scenarios can differ in data
+ * directory and in any setting.  A scenario that fails is reported in the
+ * summary and does not stop the others.
+ *
+ * @author Stephanie Deen
+ */
+public class BatchRunner {
+
+    private final int threads;
+
+    /**
+     * Constructor
+     *
+     * @param threads most scenarios to run at the same time
+     */
+    public BatchRunner(int threads) {
+        this.threads = threads;
+    }
+
+    /**
+     * Runs every scenario and waits for all of them to finish.
+     *
+     * @param scenarios configs to run, by scenario name
+     * @return results in the same order as the scenarios
+     */
+    public List<Result> run(Map<String, RunConfig> scenarios) {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Callable<Result>> tasks = new ArrayList<>(scenarios.size());
+        for (Map.Entry<String, RunConfig> scenario : scenarios.entrySet()) {
+            tasks.add(() -> runScenario(scenario.getKey(), scenario.getValue()));
+        }
+
+        List<Result> results = new ArrayList<>(tasks.size());
+        try {
+            for (Future<Result> result : executor.invokeAll(tasks)) {
+                results.add(result.get());
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch interrupted", ex);
+        } catch (ExecutionException ex) {
+            // runScenario catches everything, so this is a bug
+            throw new IllegalStateException("Batch failed", ex.getCause());
+        } finally {
+            executor.shutdown();
+        }
+        return results;
+    }
+
+    /**
+     * Loads a scenario's data and evolves it to the end of its run.
+     *
+     * @param name name of the scenario
+     * @param config settings of the scenario
+     * @return result of the run, holding the error if it failed
+     */
+    private Result runScenario(String name, RunConfig config) {
+        Result result = new Result(name, config);
+        long start = System.nanoTime();
+        ExecutorService executor = config.getThreads() > 1
+                ? new ForkJoinPool(config.getThreads()) : null;
+        try {
+            Data data = new Data(config);
+            GeneticAlgorithm ga = new GeneticAlgorithm(data, executor);
+            result.fittest = ga.run(new Population(data), config.termination(), null);
+            result.generations = ga.getGenerations();
+            result.stopReason = ga.getStopReason();
+        } catch (RuntimeException ex) {
+            result.error = ex;
+        } finally {
+            if (executor != null) executor.shutdown();
+            result.millis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        }
+        return result;
+    }
+
+    /**
+     * Prints one line per scenario.
+     *
+     * @param results results of a batch
+     * @param out stream to print to
+     */
+    public static void printSummary(List<Result> results, PrintStream out) {
+        out.println("Scenario\tFitness\tGenerations\tMillis\tStopped");
+        for (Result r : results) {
+            if (r.error != null) {
+                out.println(r.name + "\t-\t-\t" + r.millis + "\tfailed: " + r.error);
+            } else {
+                out.println(r.name + "\t" + r.fittest.getFitness() + "\t"
+                        + r.generations + "\t" + r.millis + "\t" + r.stopReason);
+            }
+        }
+    }
+
+    /**
+     * Usage: BatchRunner threads outputDir dataDir...
+     * Runs the default settings against each data directory and writes each
+     * scenario's fittest schedule to outputDir/name.html, where name is the
+     * data directory's name.
+     *
+     * @param args command line arguments
+     */
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: BatchRunner threads outputDir dataDir...");
+            return;
+        }
+        File outputDir = new File(args[1]);
+        outputDir.mkdirs();
+
+        Map<String, RunConfig> scenarios = new LinkedHashMap<>();
+        for (int i=2; i<args.length; i++) {
+            scenarios.put(new File(args[i]).getName(),
+                    RunConfig.defaults().withDataPath(args[i]));
+        }
+
+        List<Result> results = new BatchRunner(Integer.parseInt(args[0])).run(scenarios);
+        for (Result r : results) {
+            if (r.fittest == null) continue;
+            try {
+                TutorScheduler.export(r.fittest, new File(outputDir, r.name + ".html"));
+            } catch (IOException e) {
+                System.out.println("Error: could not write " + r.name + ": " + e.getMessage());
+            }
+        }
+        printSummary(results, System.out);
+    }
+
+    /**
+     * The outcome of one scenario.
+     */
+    public static class Result {
+        private final String name;
+        private final RunConfig config;
+        private Schedule fittest;
+        private int generations;
+        private String stopReason;
+        private long millis;
+        private Throwable error;
+
+        Result(String name, RunConfig config) {
+            this.name = name;
+            this.config = config;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public RunConfig getConfig() {
+            return config;
+        }
+
+        /**
+         * @return fittest schedule of the run, or null if it failed
+         */
+        public Schedule getFittest() {
+            return fittest;
+        }
+
+        public int getGenerations() {
+            return generations;
+        }
+
+        public String getStopReason() {
+            return stopReason;
+        }
+
+        /**
+         * @return wall clock time of the scenario, including loading data
+         */
+        public long getMillis() {
+            return millis;
+        }
+
+        /**
+         * @return what made the scenario fail, or null if it succeeded
+         */
+        public Throwable getError() {
+            return error;
+        }
+    }
+}
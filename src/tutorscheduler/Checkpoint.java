@@ -0,0 +1,214 @@
+package tutorscheduler;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The state of a genetic algorithm run between two generations: the
+ * population's genes and fitness, the fittest schedule found so far, the
+ * generation counter, the mutation rate, and the seed the
+ * algorithm's random stream continues from.  A run resumed from a
+ * checkpoint continues exactly as the original run did after writing it.
+ *
+ * The file is a gzipped binary of the counters followed by every schedule's
+ * fitness and genes, and is replaced atomically, so a crash while writing
+ * leaves the previous checkpoint intact.
+ *
+ * @author Stephanie Deen
+ */
+public class Checkpoint {
+
+    private static final int MAGIC = 0x54534350; // "TSCP"
+    private static final int VERSION = 2;
+
+    private final int generation;
+    private final int stalled; // generations since best improved
+    private final long elapsedNanos; // run time up to the checkpoint
+    private final long seed; // seed of the random stream from here on
+    private final double mutationRate; // rate in use, which may adapt
+    private final Schedule best;
+    private final Schedule[] schedules;
+
+    /**
+     * Constructor.  The schedules are copied, which is cheap because copies
+     * share their arrays until changed.
+     *
+     * @param generation generations evolved so far
+     * @param stalled generations since the best schedule improved
+     * @param elapsedNanos time the run has taken so far
+     * @param seed seed the run's random stream continues from
+     * @param mutationRate mutation rate of the next generation
+     * @param best fittest schedule found so far
+     * @param population the current population
+     */
+    Checkpoint(int generation, int stalled, long elapsedNanos, long seed,
+            double mutationRate, Schedule best, Population population) {
+        this.generation = generation;
+        this.stalled = stalled;
+        this.elapsedNanos = elapsedNanos;
+        this.seed = seed;
+        this.mutationRate = mutationRate;
+        this.best = new Schedule(best);
+        this.schedules = new Schedule[population.size()];
+        for (int i=0; i<schedules.length; i++) {
+            schedules[i] = new Schedule(population.getSchedule(i));
+        }
+    }
+
+    private Checkpoint(int generation, int stalled, long elapsedNanos, long seed,
+            double mutationRate, Schedule best, Schedule[] schedules) {
+        this.generation = generation;
+        this.stalled = stalled;
+        this.elapsedNanos = elapsedNanos;
+        this.seed = seed;
+        this.mutationRate = mutationRate;
+        this.best = best;
+        this.schedules = schedules;
+    }
+
+    /**
+     * Writes the checkpoint to a temporary file next to the target, then
+     * moves it into place.
+     *
+     * @param file file to write
+     * @throws IOException if the file cannot be written
+     */
+    public void write(File file) throws IOException {
+        File tmp = new File(file.getAbsoluteFile().getParentFile(), file.getName() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(tmp.toPath()))))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(best.size());
+            out.writeInt(schedules.length);
+            out.writeInt(generation);
+            out.writeInt(stalled);
+            out.writeLong(elapsedNanos);
+            out.writeLong(seed);
+            out.writeDouble(mutationRate);
+            writeSchedule(out, best);
+            for (Schedule s : schedules) {
+                writeSchedule(out, s);
+            }
+        }
+        Files.move(tmp.toPath(), file.toPath(),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private static void writeSchedule(DataOutputStream out, Schedule s) throws IOException {
+        out.writeInt(s.getFitness());
+        for (int i=0; i<s.size(); i++) {
+            out.writeLong(s.getGene(i));
+        }
+    }
+
+    /**
+     * Reads a checkpoint, rebuilding its schedules against the given data.
+     * The data must have the same slots and population size as the run that
+     * wrote it.
+     *
+     * @param file file to read
+     * @param data data of the run to resume
+     * @return the checkpoint
+     * @throws IOException if the file cannot be read or does not fit the data
+     */
+    public static Checkpoint read(File file, Data data) throws IOException {
+        try (InputStream in = Files.newInputStream(file.toPath());
+             DataInputStream din = new DataInputStream(new BufferedInputStream(
+                     new GZIPInputStream(in)))) {
+            if (din.readInt() != MAGIC || din.readInt() != VERSION) {
+                throw new IOException(file + " is not a checkpoint");
+            }
+            int slots = din.readInt();
+            if (slots != data.config.slots()) {
+                throw new IOException(file + " has " + slots + " slots, the run has "
+                        + data.config.slots());
+            }
+            int size = din.readInt();
+            if (size != data.config.getPopulationSize()) {
+                throw new IOException(file + " has a population of " + size 
+                        + ", the run has " + data.config.getPopulationSize());
+            }
+            int generation = din.readInt();
+            int stalled = din.readInt();
+            long elapsedNanos = din.readLong();
+            long seed = din.readLong();
+            double mutationRate = din.readDouble();
+            Schedule best = readSchedule(din, data);
+            Schedule[] schedules = new Schedule[size];
+            for (int i=0; i<size; i++) {
+                schedules[i] = readSchedule(din, data);
+            }
+            return new Checkpoint(generation, stalled, elapsedNanos, seed,
+                    mutationRate, best, schedules);
+        }
+    }
+
+    private static Schedule readSchedule(DataInputStream in, Data data) throws IOException {
+        int fitness = in.readInt();
+        Schedule s = new Schedule(data, false);
+        for (int i=0; i<s.size(); i++) {
+            s.setGene(in.readLong(), i);
+        }
+        s.calcFitness();
+        if (s.getFitness() != fitness) {
+            // the data changed since the checkpoint, the run still continues
+            Logger.getLogger(Checkpoint.class.getName()).log(Level.WARNING,
+                    "Checkpointed fitness {0} is now {1}", new Object[] {fitness, s.getFitness()});
+        }
+        return s;
+    }
+
+    /**
+     * @return number of generations evolved before the checkpoint
+     */
+    public int getGeneration() {
+        return generation;
+    }
+
+    int getStalled() {
+        return stalled;
+    }
+
+    long getElapsedNanos() {
+        return elapsedNanos;
+    }
+
+    long getSeed() {
+        return seed;
+    }
+
+    double getMutationRate() {
+        return mutationRate;
+    }
+
+    /**
+     * @return copy of the fittest schedule found before the checkpoint
+     */
+    public Schedule getBest() {
+        return new Schedule(best);
+    }
+
+    /**
+     * @return copy of the population at the checkpoint
+     */
+    public Population getPopulation() {
+        Population population = new Population();
+        for (Schedule s : schedules) {
+            population.addSchedule(new Schedule(s));
+        }
+        population.findFittest();
+        return population;
+    }
+}
@@ -0,0 +1,99 @@
+package tutorscheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Writes checkpoints on a background thread so evolution never waits on the
+ * disk.  If the previous checkpoint is still being written when the next
+ * one is due, the next one is skipped rather than queued.
+ *
+ * @author Stephanie Deen
+ */
+class CheckpointWriter {
+
+    private static final Logger LOG = Logger.getLogger(CheckpointWriter.class.getName());
+
+    private final File file;
+    private final int everyGenerations; // 0 to not checkpoint by generation
+    private final long everyNanos; // 0 to not checkpoint by time
+    private final ExecutorService executor;
+    private final AtomicBoolean writing = new AtomicBoolean();
+    private long lastNanos;
+
+    /**
+     * Constructor
+     *
+     * @param file file to write checkpoints to
+     * @param everyGenerations generations between checkpoints, 0 for no limit
+     * @param everySeconds seconds between checkpoints, 0 for no limit
+     */
+    CheckpointWriter(File file, int everyGenerations, long everySeconds) {
+        this.file = file;
+        this.everyGenerations = everyGenerations;
+        this.everyNanos = TimeUnit.SECONDS.toNanos(everySeconds);
+        this.lastNanos = System.nanoTime();
+        this.executor = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "checkpoint-writer");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /**
+     * @param generation generations evolved so far
+     * @return true if a checkpoint is due after this generation
+     */
+    boolean isDue(int generation) {
+        return (everyGenerations > 0 && generation > 0 && generation % everyGenerations == 0)
+                || (everyNanos > 0 && System.nanoTime() - lastNanos >= everyNanos);
+    }
+
+    /**
+     * Starts writing a checkpoint in the background, unless one is still
+     * being written.
+     *
+     * @param checkpoint checkpoint to write
+     */
+    void submit(Checkpoint checkpoint) {
+        lastNanos = System.nanoTime();
+        if (!writing.compareAndSet(false, true)) {
+            LOG.log(Level.FINE, "Skipping checkpoint of generation {0}, still writing",
+                    checkpoint.getGeneration());
+            return;
+        }
+        executor.execute(() -> {
+            try {
+                checkpoint.write(file);
+            } catch (IOException ex) {
+                LOG.log(Level.WARNING, "Could not write checkpoint " + file, ex);
+            } finally {
+                writing.set(false);
+            }
+        });
+    }
+
+    /**
+     * Waits for any checkpoint being written, then writes the last one on
+     * the calling thread.
+     *
+     * @param checkpoint final checkpoint of the run
+     */
+    void finish(Checkpoint checkpoint) {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+            checkpoint.write(file);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Could not write checkpoint " + file, ex);
+        }
+    }
+}
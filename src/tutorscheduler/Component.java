@@ -5,6 +5,9 @@
  */
 package tutorscheduler;
 
+import java.util.Arrays;
+import java.util.Objects;
+
 /**
  * Represents a tutor, supervisor, or a room.
  * 
@@ -15,6 +18,8 @@ public class Component {
     private String name;
     private int maxHours;
     private int status;
+    private int id = -1; // dense index within its status, assigned by Data
+    private long[] availability = new long[1]; // bit i set if available at slot i
     
     public static int SUPERVISOR = 0;
     public static int TUTOR = 1;
@@ -43,6 +48,15 @@ public class Component {
         return status;
     }
 
+    /**
+     * 
+     * @return index of the component within the list of components that 
+     * share its status, or -1 if the component was not created by Data
+     */
+    public int getId() {
+        return id;
+    }
+
     public void setName(String name) {
         this.name = name;
     }
@@ -54,6 +68,62 @@ public class Component {
     public void setStatus(int status) {
         this.status = status;
     }
+
+    public void setId(int id) {
+        this.id = id;
+    }
+    
+    /**
+     * Marks the component as available at the given time slot.  The mask
+     * grows as needed, so any number of slots can be recorded.
+     * 
+     * @param slot index of the time slot
+     */
+    public void setAvailable(int slot) {
+        int word = slot >>> 6;
+        if (word >= availability.length) {
+            availability = Arrays.copyOf(availability, 
+                    Math.max(word+1, availability.length*2));
+        }
+        availability[word] |= 1L << slot;
+    }
+    
+    /**
+     * Marks the component as unavailable in a range of time slots.
+     * 
+     * @param from first slot to clear, inclusive
+     * @param to last slot to clear, exclusive
+     */
+    public void clearAvailable(int from, int to) {
+        for (int slot=from; slot<to && (slot >>> 6) < availability.length; slot++) {
+            availability[slot >>> 6] &= ~(1L << slot);
+        }
+    }
+    
+    /**
+     * 
+     * @param slot index of the time slot
+     * @return true if the component is available at the slot
+     */
+    public boolean isAvailable(int slot) {
+        int word = slot >>> 6;
+        return word < availability.length 
+                && (availability[word] & (1L << slot)) != 0;
+    }
+    
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof Component)) return false;
+        Component other = (Component) o;
+        return id == other.id && status == other.status 
+                && Objects.equals(name, other.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * (31 * status + id) + Objects.hashCode(name);
+    }
     
     @Override
     public String toString() {
@@ -0,0 +1,50 @@
+package tutorscheduler;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes a schedule as CSV, one row for each slot that has a session.
+ * 
+ * @author Stephanie Deen
+ */
+public class CsvExporter implements ScheduleExporter {
+
+    @Override
+    public void export(Schedule schedule, Writer out) throws IOException {
+        int slotsPerWeek = schedule.getConfig().slotsPerWeek();
+        out.write("slot,week,day,time,room,tutor,supervisor\n");
+        for (int i=0; i<schedule.size(); i++) {
+            Session session = schedule.getSession(i);
+            if (session.getRoom() == null) continue; // dummy session
+            
+            out.write(Integer.toString(i));
+            out.write(',');
+            out.write(Integer.toString(i / slotsPerWeek + 1));
+            out.write(',');
+            out.write(ScheduleExporter.day(schedule.getConfig(), i));
+            out.write(',');
+            out.write(ScheduleExporter.time(schedule.getConfig(), i));
+            out.write(',');
+            out.write(quote(session.getRoom().getName()));
+            out.write(',');
+            out.write(quote(session.getTutor().getName()));
+            out.write(',');
+            out.write(quote(session.getSupervisor().getName()));
+            out.write('\n');
+        }
+        out.flush();
+    }
+    
+    /**
+     * 
+     * @param field value of a field
+     * @return the field, quoted if it contains a comma, quote or line break
+     */
+    private static String quote(String field) {
+        if (field.indexOf(',') < 0 && field.indexOf('"') < 0 
+                && field.indexOf('\n') < 0 && field.indexOf('\r') < 0) 
+            return field;
+        return '"' + field.replace("\"", "\"\"") + '"';
+    }
+}
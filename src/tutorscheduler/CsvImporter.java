@@ -0,0 +1,139 @@
+package tutorscheduler;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads a schedule written by CsvExporter back in.  Sessions are matched to
+ * the data's rooms, tutors and supervisors by name, so a schedule can be
+ * read against data that has changed since it was written.  A row naming
+ * someone who is no longer in the data, or a slot past the end of the
+ * schedule, is logged and left empty.  The slots of rows dropped for names
+ * that are not in the data are kept, so Rescheduler can refill them.
+ *
+ * @author Stephanie Deen
+ */
+public class CsvImporter {
+
+    private static final Logger LOG = Logger.getLogger(CsvImporter.class.getName());
+
+    private int[] droppedSlots = new int[0]; // slots of the last read's unknown names
+
+    /**
+     * Reads a schedule.
+     *
+     * @param in CSV written by CsvExporter
+     * @param data data to build the schedule against
+     * @return the schedule, with its fitness under the given data
+     * @throws IOException if the CSV cannot be read or has no header
+     */
+    public Schedule read(Reader in, Data data) throws IOException {
+        Map<String, Integer> rooms = ids(data.rooms);
+        Map<String, Integer> tutors = ids(data.tutors);
+        Map<String, Integer> supervisors = ids(data.supervisors);
+        Schedule schedule = new Schedule(data, false);
+        int[] dropped = new int[schedule.size()];
+        int droppedCount = 0;
+
+        BufferedReader reader = new BufferedReader(in);
+        String line = reader.readLine();
+        if (line == null || !line.startsWith("slot,")) {
+            throw new IOException("Not a schedule CSV, the header is missing");
+        }
+        int lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isEmpty()) continue;
+            List<String> fields = split(line);
+            if (fields.size() != 7) {
+                LOG.log(Level.WARNING, "Line {0}: expected 7 fields, skipping", lineNumber);
+                continue;
+            }
+            int slot;
+            try {
+                slot = Integer.parseInt(fields.get(0));
+            } catch (NumberFormatException ex) {
+                LOG.log(Level.WARNING, "Line {0}: bad slot {1}, skipping",
+                        new Object[] {lineNumber, fields.get(0)});
+                continue;
+            }
+            Integer room = rooms.get(fields.get(4));
+            Integer tutor = tutors.get(fields.get(5));
+            Integer supervisor = supervisors.get(fields.get(6));
+            if (slot < 0 || slot >= schedule.size()) {
+                LOG.log(Level.WARNING, "Line {0}: slot {1} not in the schedule, skipping",
+                        new Object[] {lineNumber, slot});
+                continue;
+            }
+            if (room == null || tutor == null || supervisor == null) {
+                LOG.log(Level.WARNING, "Line {0}: names not in the data, leaving slot {1} to refill",
+                        new Object[] {lineNumber, slot});
+                if (droppedCount < dropped.length) dropped[droppedCount++] = slot;
+                continue;
+            }
+            schedule.setGene(Session.encode(room, tutor, supervisor), slot);
+        }
+        schedule.calcFitness();
+        droppedSlots = Arrays.copyOf(dropped, droppedCount);
+        return schedule;
+    }
+
+    /**
+     * @return slots of the rows the last read dropped because they named a
+     * room, tutor or supervisor who is not in the data; these slots are empty
+     * in the schedule read
+     */
+    public int[] getDroppedSlots() {
+        return droppedSlots.clone();
+    }
+
+    private static Map<String, Integer> ids(List<Component> components) {
+        Map<String, Integer> ids = new HashMap<>();
+        for (Component c : components) {
+            ids.put(c.getName(), c.getId());
+        }
+        return ids;
+    }
+
+    /**
+     * Splits a CSV line, undoing CsvExporter's quoting.
+     *
+     * @param line line of CSV
+     * @return the fields
+     */
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(7);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i=0; i<line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i+1 < line.length() && line.charAt(i+1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
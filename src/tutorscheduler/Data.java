@@ -1,9 +1,13 @@
 package tutorscheduler;
 
 import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
-import java.util.Scanner;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -11,144 +15,285 @@ import java.util.logging.Logger;
  * Reads in text files for room availability, tutor availability, and room 
  * availability.
  * 
+ * Times in the files are slots of a week and repeat in every week of the
+ * run; a time past the end of the week is taken as a slot of the whole run.
+ * A directory named week2 (week3, and so on) next to the files may hold 
+ * files of the same names whose lines replace the listed people's and 
+ * rooms' availability for that week only.
+ * 
+ * Files are read with DataReader, which skips and logs malformed lines.
+ * If the config names a workbook, its sheets are read after the text files
+ * and replace or add to the availability they hold.
+ * 
  * @author Stephanie Deen
  */
 public class Data {
     
-    String path = "src/Resources/";
-    String[] textFiles = {path+"SupervisorData.txt", path+"TutorData.txt", path+"RoomData.txt"};
+    final RunConfig config;
+    String path;
+    String[] textFiles;
+    
+    // max hours of people who are only in a workbook, which has no hours
+    static final int WORKBOOK_SUPERVISOR_HOURS = 29;
+    static final int WORKBOOK_TUTOR_HOURS = 6;
     
     ArrayList<Component> tutors = new ArrayList<>();
     ArrayList<Component> supervisors = new ArrayList<>();
     ArrayList<Component> rooms = new ArrayList<>();
     
-    String[] tutorAvailability;
-    String[] supervisorAvailability;
-    String[] roomAvailability;
-
+    // ids of the components available in each slot, built after loading
+    int[][] tutorsBySlot;
+    int[][] supervisorsBySlot;
+    int[][] roomsBySlot;
+    
     public Data() 
     {       
-        // give availability enough slots for every time of day, M-F          
-        tutorAvailability = new String[TutorScheduler.HOURS_A_DAY*TutorScheduler.DAYS_A_WEEK]; 
-        supervisorAvailability = new String[TutorScheduler.HOURS_A_DAY*TutorScheduler.DAYS_A_WEEK];
-        roomAvailability = new String[TutorScheduler.HOURS_A_DAY*TutorScheduler.DAYS_A_WEEK];
-        
-        Scanner inFile;
+        this(RunConfig.defaults());
+    }
+    
+    /**
+     * Reads the supervisor, tutor and room files from a directory, using the
+     * default settings for everything else.
+     * 
+     * @param path directory holding SupervisorData.txt, TutorData.txt and 
+     * RoomData.txt
+     */
+    public Data(String path)
+    {
+        this(RunConfig.defaults().withDataPath(path));
+    }
+    
+    /**
+     * Reads the supervisor, tutor and room files from the config's data 
+     * directory.  The config travels with the data to the populations, 
+     * schedules and genetic algorithm built from it.
+     * 
+     * @param config settings for the run
+     */
+    public Data(RunConfig config)
+    {
+        long start = Metrics.DATA_LOAD.begin();
+        this.config = config;
+        this.path = config.getDataPath();
+        textFiles = new String[] {path+"SupervisorData.txt", path+"TutorData.txt", path+"RoomData.txt"};
         
         // for each file, fill ArrayList with info
         try {
-            inFile = new Scanner(new File(textFiles[0]));
-            while (inFile.hasNextLine()) {
-                addSupervisor(inFile.nextLine());
-            }
-            
-            inFile = new Scanner(new File(textFiles[1]));
-            while (inFile.hasNextLine()) {
-                addTutor(inFile.nextLine());
-            }
-            
-            inFile = new Scanner(new File(textFiles[2]));
-            while (inFile.hasNextLine()) {
-                addRoom(inFile.nextLine());
-            }
-                
-        } catch (FileNotFoundException ex) {
+            new DataReader(true, this::addSupervisor).read(Paths.get(textFiles[0]));
+            new DataReader(true, this::addTutor).read(Paths.get(textFiles[1]));
+            new DataReader(false, (name, hours, times, count) -> 
+                    addRoom(name, times, count)).read(Paths.get(textFiles[2]));
+        } catch (IOException ex) {
             Logger.getLogger(Data.class.getName()).log(Level.SEVERE, null, ex);
         }
-           
+        
+        if (config.getWorkbook() != null) {
+            try {
+                importWorkbook(new File(config.getWorkbook()));
+            } catch (IOException ex) {
+                Logger.getLogger(Data.class.getName()).log(Level.SEVERE, null, ex);
+            }
+        }
+        
+        for (int week=1; week<=config.getWeeks(); week++) {
+            loadOverrides(week);
+        }
+        indexAvailability();
+        Metrics.DATA_LOAD.end(start);
     }
     
     /**
-     * Each line in text file collects information about the supervisor.  
-     * Information is added to supervisor array list and the availability info
-     * is added to the availability array.  Information about the availability
-     * is currently stored as index for the availability array.
+     * Reads availability from a workbook with one sheet per person.  A sheet
+     * named after someone already read from the text files replaces their 
+     * availability; a sheet for someone new adds them, as a supervisor or
+     * tutor by the start of the sheet's name.  Times repeat in every week 
+     * like times in the text files.
      * 
-     * @param line line of the text file
+     * @param workbook .xlsx file to read
+     * @throws IOException if the workbook cannot be read
      */
-    private void addSupervisor(String line) {
-        String[] supervisor = line.split(",");
-        // [0] = Name, [1] = hours, [2] = M-F availability
-        // add to list of supervisors
-        int hours = Integer.valueOf(supervisor[1].trim());
-        supervisors.add(new Component(
-                supervisor[0], Component.SUPERVISOR, hours));
+    private void importWorkbook(File workbook) throws IOException {
+        Map<String, Component> byName = new HashMap<>();
+        for (Component c : supervisors) byName.put(c.getName(), c);
+        for (Component c : tutors) byName.put(c.getName(), c);
+        for (Component c : rooms) byName.put(c.getName(), c);
         
-        // add supervisor availability by splitting indexes into an array
-        String[] times = supervisor[2].trim().split(" ");
-        for (int i=0; i<times.length; i++) {
-            int index = Integer.valueOf(times[i]);
-            
-            // check if index in avail array already has a string in it
-            if (supervisorAvailability[index] == null) {
-                supervisorAvailability[index] = supervisor[0];
+        new XlsxReader().read(workbook, (name, times, count) -> {
+            Component component = byName.get(name);
+            if (component != null) {
+                component.clearAvailable(0, config.slots());
+                for (int i=0; i<count; i++) {
+                    setAvailable(component, times[i]);
+                }
+            } else if (name.startsWith("Supervisor")) {
+                addSupervisor(name, WORKBOOK_SUPERVISOR_HOURS, times, count);
+            } else if (name.startsWith("Tutor")) {
+                addTutor(name, WORKBOOK_TUTOR_HOURS, times, count);
+            } else if (name.startsWith("Room")) {
+                addRoom(name, times, count);
             } else {
-                String name = supervisorAvailability[index];
-                name += "," + supervisor[0];
-                supervisorAvailability[index] = name;
+                Logger.getLogger(Data.class.getName()).log(Level.WARNING, 
+                        "Skipping sheet {0}, not a supervisor, tutor or room", name);
             }
-        }
-
+        });
     }
     
     /**
-     * Add tutor to tutor arrayList and their availability to the availability
-     * array. 
+     * Reads the files in the directory for a week, if there is one, replacing
+     * the availability of each listed component for that week.
      * 
-     * @param line each line of file
+     * @param week number of the week, starting at 1
      */
-    private void addTutor(String line) {
-        String[] tutor = line.split(",");
-        // [0] = Name, [1] = hours, [2] = M-F availability
-        // add to list of tutors
-        int hours = Integer.valueOf(tutor[1].trim());
-        tutors.add(new Component(tutor[0], Component.TUTOR, hours));
+    private void loadOverrides(int week) {
+        File dir = new File(path + "week" + week);
+        if (!dir.isDirectory()) return;
         
-        // add tutor availability by splitting indexes into an array
-        String[] times = tutor[2].trim().split(" ");
-        for (int i=0; i<times.length; i++) {
-            int index = Integer.valueOf(times[i]);
-            
-            // check if index in avail array already has a string in it
-            if (tutorAvailability[index] == null) {
-                tutorAvailability[index] = tutor[0];
-            } else {
-                String name = tutorAvailability[index];
-                name += "," + tutor[0];
-                tutorAvailability[index] = name;
+        String[] names = {"SupervisorData.txt", "TutorData.txt", "RoomData.txt"};
+        List<ArrayList<Component>> lists = Arrays.asList(supervisors, tutors, rooms);
+        for (int f=0; f<names.length; f++) {
+            File file = new File(dir, names[f]);
+            if (!file.isFile()) continue;
+            Map<String, Component> byName = new HashMap<>();
+            for (Component c : lists.get(f)) byName.put(c.getName(), c);
+            try {
+                new DataReader(f < 2, (name, hours, times, count) -> 
+                        overrideAvailability(byName, name, times, count, week))
+                        .read(file.toPath());
+            } catch (IOException ex) {
+                Logger.getLogger(Data.class.getName()).log(Level.SEVERE, null, ex);
             }
         }
     }
     
     /**
-     * Add a room from the text file to the rooms arrayList, and update the 
-     * room availability array.
+     * Replaces a component's availability for one week with the times on a 
+     * line of an override file.
      * 
-     * @param line a line in the file
+     * @param byName components of the line's status, by name
+     * @param name name on the line
+     * @param times times on the line, valid up to count
+     * @param count number of times
+     * @param week number of the week, starting at 1
      */
-    private void addRoom(String line) {
-        String[] room = line.split(",");
-        // [0] = Name, [1] = M-F availability
-        // add to list of rooms
-        rooms.add(new Component(
-                room[0], Component.ROOM));
+    private void overrideAvailability(Map<String, Component> byName, String name, 
+            int[] times, int count, int week) {
+        Component component = byName.get(name);
+        if (component == null) {
+            Logger.getLogger(Data.class.getName()).log(Level.WARNING, 
+                    "Week {0} lists unknown {1}", new Object[] {week, name});
+            return;
+        }
         
-        // add room availability by splitting indexes into an array
-        String[] times = room[1].trim().split(" ");
-        for (int i=0; i<times.length; i++) {
-            int index = Integer.valueOf(times[i]);
-            
-            // check if index in avail array already has a string in it
-            // if not, add room in, if so, update to include room
-            if (roomAvailability[index] == null) {
-                roomAvailability[index] = room[0];
-            } else {
-                String name = roomAvailability[index];
-                name += "," + room[0];
-                roomAvailability[index] = name;
+        int slotsPerWeek = config.slotsPerWeek();
+        int start = (week-1)*slotsPerWeek;
+        component.clearAvailable(start, start+slotsPerWeek);
+        for (int i=0; i<count; i++) {
+            if (times[i] < slotsPerWeek) component.setAvailable(start+times[i]);
+        }
+    }
+    
+    /**
+     * Marks a component available at a time read from a base file: in that 
+     * slot of every week, or at that slot of the run if it is past the end 
+     * of the week.
+     * 
+     * @param component component to mark
+     * @param index time read from the file
+     */
+    private void setAvailable(Component component, int index) {
+        int slotsPerWeek = config.slotsPerWeek();
+        if (index >= slotsPerWeek) {
+            component.setAvailable(index);
+            return;
+        }
+        for (int week=0; week<config.getWeeks(); week++) {
+            component.setAvailable(week*slotsPerWeek + index);
+        }
+    }
+    
+    /**
+     * Builds the lists of components available in each slot of the run, 
+     * used to draw sessions that match availability.
+     */
+    void indexAvailability() {
+        int slots = config.slots();
+        tutorsBySlot = bySlot(tutors, slots);
+        supervisorsBySlot = bySlot(supervisors, slots);
+        roomsBySlot = bySlot(rooms, slots);
+    }
+    
+    /**
+     * 
+     * @param components components of one status
+     * @param slots number of slots
+     * @return for each slot, the ids of the components available in it
+     */
+    private static int[][] bySlot(ArrayList<Component> components, int slots) {
+        int[][] bySlot = new int[slots][];
+        int[] ids = new int[components.size()];
+        for (int slot=0; slot<slots; slot++) {
+            int count = 0;
+            for (int i=0; i<components.size(); i++) {
+                if (components.get(i).isAvailable(slot)) ids[count++] = i;
             }
+            bySlot[slot] = Arrays.copyOf(ids, count);
+        }
+        return bySlot;
+    }
+    
+    /**
+     * Each line in text file collects information about the supervisor.  
+     * Information is added to supervisor array list and the availability info
+     * is added to the supervisor's availability mask.  Each time listed in the
+     * file is the index of a slot in the week.
+     * 
+     * @param name name of the supervisor
+     * @param hours max hours of the supervisor
+     * @param times times the supervisor is available, valid up to count
+     * @param count number of times
+     */
+    private void addSupervisor(String name, int hours, int[] times, int count) {
+        Component component = new Component(name, Component.SUPERVISOR, hours);
+        component.setId(supervisors.size());
+        supervisors.add(component);
+        for (int i=0; i<count; i++) {
+            setAvailable(component, times[i]);
+        }
+    }
+    
+    /**
+     * Add tutor to tutor arrayList and their availability to the tutor's
+     * availability mask. 
+     * 
+     * @param name name of the tutor
+     * @param hours max hours of the tutor
+     * @param times times the tutor is available, valid up to count
+     * @param count number of times
+     */
+    private void addTutor(String name, int hours, int[] times, int count) {
+        Component component = new Component(name, Component.TUTOR, hours);
+        component.setId(tutors.size());
+        tutors.add(component);
+        for (int i=0; i<count; i++) {
+            setAvailable(component, times[i]);
+        }
+    }
+    
+    /**
+     * Add a room from the text file to the rooms arrayList, and update the 
+     * room's availability mask.
+     * 
+     * @param name name of the room
+     * @param times times the room is available, valid up to count
+     * @param count number of times
+     */
+    private void addRoom(String name, int[] times, int count) {
+        Component component = new Component(name, Component.ROOM);
+        component.setId(rooms.size());
+        rooms.add(component);
+        for (int i=0; i<count; i++) {
+            setAvailable(component, times[i]);
         }
     }
     
 }
-
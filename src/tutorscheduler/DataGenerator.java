@@ -0,0 +1,132 @@
+package tutorscheduler;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.Random;
+
+/**
+ * Writes synthetic SupervisorData.txt, TutorData.txt and RoomData.txt files
+ * in the same format as the files in src/Resources, for load testing at
+ * larger sizes.  For more than one week, the files hold the first week and
+ * directories week2, week3, and so on hold each later week's availability.
+ * The same settings and seed always produce the same files.
+ *
+ * @author Stephanie Deen
+ */
+public class DataGenerator {
+
+    private final int supervisors;
+    private final int tutors;
+    private final int rooms;
+    private final int slotsPerWeek;
+    private final int weeks;
+    private final double density; // chance of being available in a slot
+    private final long seed;
+
+    /**
+     * Constructor
+     *
+     * @param supervisors number of supervisors to write
+     * @param tutors number of tutors to write
+     * @param rooms number of rooms to write
+     * @param slotsPerWeek number of slots in a week
+     * @param weeks number of weeks to cover
+     * @param density chance, from 0 to 1, of being available in each slot
+     * @param seed seed of the random availability
+     */
+    public DataGenerator(int supervisors, int tutors, int rooms, int slotsPerWeek,
+            int weeks, double density, long seed) {
+        this.supervisors = supervisors;
+        this.tutors = tutors;
+        this.rooms = rooms;
+        this.slotsPerWeek = slotsPerWeek;
+        this.weeks = weeks;
+        this.density = density;
+        this.seed = seed;
+    }
+
+    /**
+     * Writes the data files into a directory, creating it if needed.
+     *
+     * @param dir directory to write to
+     * @throws IOException if a file cannot be written
+     */
+    public void write(File dir) throws IOException {
+        for (int week=1; week<=weeks; week++) {
+            File weekDir = week == 1 ? dir : new File(dir, "week" + week);
+            weekDir.mkdirs();
+            // each file and week gets its own stream, so changing one count
+            // leaves the other files unchanged; max hours use the same stream
+            // every week so they agree between weeks
+            long weekSeed = seed + 31L*week;
+            writeFile(new File(weekDir, "SupervisorData.txt"), "Supervisor", supervisors,
+                    20, 30, new Random(seed), new Random(weekSeed));
+            writeFile(new File(weekDir, "TutorData.txt"), "Tutor", tutors,
+                    4, 10, new Random(seed + 1), new Random(weekSeed + 1));
+            writeFile(new File(weekDir, "RoomData.txt"), "Room", rooms,
+                    -1, -1, null, new Random(weekSeed + 2));
+        }
+    }
+
+    /**
+     * Writes one data file.  Each line is a name, max hours (except for
+     * rooms) and the list of slots of the week the component is available in.
+     *
+     * @param file file to write
+     * @param prefix name of each component, followed by its number
+     * @param count number of lines to write
+     * @param minHours smallest max hours, or -1 for rooms which have none
+     * @param maxHours largest max hours
+     * @param hoursRand random stream for max hours
+     * @param rand random stream for availability
+     * @throws IOException if the file cannot be written
+     */
+    private void writeFile(File file, String prefix, int count, int minHours,
+            int maxHours, Random hoursRand, Random rand) throws IOException {
+        StringBuilder line = new StringBuilder();
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file))) {
+            for (int i=1; i<=count; i++) {
+                line.setLength(0);
+                line.append(prefix).append(' ').append(i).append(",    ");
+                if (minHours >= 0) {
+                    line.append(minHours + hoursRand.nextInt(maxHours - minHours + 1));
+                    line.append(",  ");
+                }
+
+                int start = line.length();
+                for (int slot=0; slot<slotsPerWeek; slot++) {
+                    if (rand.nextDouble() < density) {
+                        if (line.length() > start) line.append(' ');
+                        line.append(slot);
+                    }
+                }
+                // every line needs at least one slot to be read back in
+                if (line.length() == start) line.append(rand.nextInt(slotsPerWeek));
+
+                bw.write(line.toString());
+                bw.newLine();
+            }
+        }
+    }
+
+    /**
+     * Usage: DataGenerator dir supervisors tutors rooms weeks density seed
+     * Weeks are the size of the default week.
+     *
+     * @param args command line arguments
+     * @throws IOException if a file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 7) {
+            System.out.println("Usage: DataGenerator dir supervisors tutors rooms weeks density seed");
+            return;
+        }
+        DataGenerator generator = new DataGenerator(Integer.parseInt(args[1]),
+                Integer.parseInt(args[2]), Integer.parseInt(args[3]),
+                RunConfig.defaults().slotsPerWeek(), Integer.parseInt(args[4]),
+                Double.parseDouble(args[5]), Long.parseLong(args[6]));
+        generator.write(new File(args[0]));
+    }
+}
@@ -0,0 +1,175 @@
+package tutorscheduler;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Reads a supervisor, tutor or room file in one pass over a FileChannel.
+ * Each line is a name, then (for supervisors and tutors) max hours, then the
+ * space separated times the component is available, all separated by
+ * commas.  Numbers are parsed straight from the bytes, and each line is
+ * handed over as a name and an array of times with no other objects made.
+ * A malformed line is logged with its line number and skipped.
+ *
+ * @author Stephanie Deen
+ */
+class DataReader {
+
+    private static final Logger LOG = Logger.getLogger(DataReader.class.getName());
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Receives each well formed line of a file.
+     */
+    interface LineHandler {
+        /**
+         * @param name name of the component
+         * @param hours max hours, or -1 for a file without hours
+         * @param times buffer holding the times, valid up to count
+         * @param count number of times on the line
+         */
+        void line(String name, int hours, int[] times, int count);
+    }
+
+    private final boolean hasHours;
+    private final LineHandler handler;
+
+    // state of the line being parsed
+    private byte[] name = new byte[64];
+    private int nameLength;
+    private int[] times = new int[64];
+    private int count;
+    private int field; // 0 = name, then one field per comma
+    private int hours;
+    private long number; // number being read, -1 if none
+    private String error; // why the line is malformed, null if it is not
+    private int lineNumber;
+    private int malformed;
+
+    /**
+     * Constructor
+     *
+     * @param hasHours true if lines have a max hours field (supervisors and
+     * tutors), false if not (rooms)
+     * @param handler receives each well formed line
+     */
+    DataReader(boolean hasHours, LineHandler handler) {
+        this.hasHours = hasHours;
+        this.handler = handler;
+    }
+
+    /**
+     * Reads a file and hands each well formed line to the handler.
+     *
+     * @param file file to read
+     * @return number of malformed lines that were skipped
+     * @throws IOException if the file cannot be read
+     */
+    int read(Path file) throws IOException {
+        startLine();
+        lineNumber = 1;
+        malformed = 0;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(
+                    (int) Math.min(BUFFER_SIZE, Math.max(channel.size(), 1)));
+            while (channel.read(buffer) > 0) {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    accept(buffer.get(), file);
+                }
+                buffer.clear();
+            }
+        }
+        endLine(file); // last line may have no line break
+        return malformed;
+    }
+
+    /**
+     * Advances the parser by one byte.
+     */
+    private void accept(byte b, Path file) {
+        if (b == '\n') {
+            endLine(file);
+            startLine();
+            lineNumber++;
+            return;
+        }
+        if (error != null || b == '\r') return;
+
+        if (field == 0) {
+            if (b == ',') {
+                field = 1;
+            } else {
+                if (nameLength == name.length) name = Arrays.copyOf(name, name.length*2);
+                name[nameLength++] = b;
+            }
+        } else if (b >= '0' && b <= '9') {
+            number = (number < 0 ? 0 : number*10) + (b - '0');
+            if (number > Integer.MAX_VALUE) error = "number too large";
+        } else if (b == ' ' || b == '\t') {
+            endNumber();
+        } else if (b == ',') {
+            endNumber();
+            field++;
+        } else {
+            error = "unexpected '" + (char) b + "'";
+        }
+    }
+
+    /**
+     * Stores the number that just ended in the field it belongs to.
+     */
+    private void endNumber() {
+        if (number < 0) return;
+        int value = (int) number;
+        number = -1;
+        if (hasHours && field == 1) {
+            if (hours >= 0) error = "more than one max hours";
+            hours = value;
+        } else if (field == (hasHours ? 2 : 1)) {
+            if (count == times.length) times = Arrays.copyOf(times, times.length*2);
+            times[count++] = value;
+        } else {
+            error = "too many fields";
+        }
+    }
+
+    private void startLine() {
+        nameLength = 0;
+        count = 0;
+        field = 0;
+        hours = -1;
+        number = -1;
+        error = null;
+    }
+
+    /**
+     * Checks the line that just ended and hands it over, or logs why not.
+     */
+    private void endLine(Path file) {
+        if (error == null) endNumber();
+        String lineName = new String(name, 0, nameLength, StandardCharsets.UTF_8).trim();
+        if (field == 0 && lineName.isEmpty()) return; // blank line
+
+        if (error == null) {
+            if (field != (hasHours ? 2 : 1)) error = "expected " + (hasHours ? 3 : 2) + " fields";
+            else if (lineName.isEmpty()) error = "missing name";
+            else if (hasHours && hours < 0) error = "missing max hours";
+            else if (count == 0) error = "no times";
+        }
+        if (error != null) {
+            malformed++;
+            LOG.log(Level.WARNING, "{0}:{1}: skipping malformed line, {2}",
+                    new Object[] {file, lineNumber, error});
+            return;
+        }
+        handler.line(lineName, hours, times, count);
+    }
+}
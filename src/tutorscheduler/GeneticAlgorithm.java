@@ -1,6 +1,17 @@
 package tutorscheduler;
 
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
 
 /**
  * Responsible for handling the evolution (crossover and mutations) of the 
@@ -13,51 +24,406 @@ public class GeneticAlgorithm {
     Random rand;
     Data data;
     private final int populationSize;
+    private final int elites; // fittest schedules carried over unchanged
+    private double mutationRate; // changes between generations when adaptive
+    private final double crossoverRate;
+    private final boolean adaptive;
+    private final boolean metricsLog; // log each generation's metrics
+    private final Metrics.Run metrics = new Metrics.Run(); // this run's share
+    private double diversity; // diversity of the latest generation
+    private final boolean guided;
+    private final int localSearchTopK;
+    private LocalSearch localSearch; // null when there is no local search
+    private int[] slots; // the only slots evolved, null for all of them
+    private final ExecutorService executor; // null when evolving on one thread
+    private final int parallelism;
+    private Population population; // final population of the last run
+    private int generations; // generations evolved in the last run
+    private String stopReason; // why the last run stopped
+    private File checkpointFile; // null when not checkpointing
+    private int checkpointGenerations;
+    private long checkpointSeconds;
+    private final LongAdder duplicateChildren = new LongAdder();
+    private final LongAdder distinctChildren = new LongAdder();
+    // defaults for RunConfig.defaults()
     public static double MUTATION_RATE = .1;
     public static double CROSSOVER_RATE = 0.3;
+    // in adaptive runs the mutation rate rises while diversity is below 
+    // DIVERSITY_LOW and falls back toward the configured rate while it is 
+    // above DIVERSITY_HIGH, by a factor of RATE_STEP each generation
+    static final double DIVERSITY_LOW = 0.15;
+    static final double DIVERSITY_HIGH = 0.3;
+    static final double RATE_STEP = 1.5;
+    static final double MAX_MUTATION_RATE = 0.4;
 
     /**
      * Constructor
      * @param data 
      */
     public GeneticAlgorithm(Data data) {
-        this.populationSize = TutorScheduler.POPULATION_SIZE;
+        this(data, null);
+    }
+
+    /**
+     * Constructor for a genetic algorithm that mutates, crosses over and 
+     * evaluates children on the given executor.  Each task is handed its own
+     * random stream, split from this algorithm's stream, so workers never
+     * share a Random.
+     * 
+     * @param data
+     * @param executor executor to evolve on, or null to evolve on the calling
+     * thread
+     */
+    public GeneticAlgorithm(Data data, ExecutorService executor) {
+        this.populationSize = data.config.getPopulationSize();
+        this.elites = Math.max(0, Math.min(data.config.getElites(), populationSize/2));
+        this.mutationRate = data.config.getMutationRate();
+        this.crossoverRate = data.config.getCrossoverRate();
+        this.guided = data.config.isGuided();
+        this.adaptive = data.config.isAdaptive();
+        this.metricsLog = data.config.isMetricsLog();
+        this.localSearchTopK = data.config.getLocalSearchTopK();
+        this.localSearch = localSearchTopK > 0 
+                ? new LocalSearch(data, data.config.getLocalSearchSteps(), null) : null;
         rand = new Random();
         this.data = data;
+        this.executor = executor;
+        if (executor instanceof ForkJoinPool)
+            parallelism = ((ForkJoinPool) executor).getParallelism();
+        else
+            parallelism = Runtime.getRuntime().availableProcessors();
     }
        
     /**
-     * Evolves the current population.  The population is sorted by fitness, 
+     * Evolves a population until the termination says to stop, keeping a copy
+     * of the fittest schedule seen in any generation.
+     * 
+     * @param population the starting population
+     * @param termination when to stop evolving
+     * @param listener called after each generation, may be null
+     * @return the fittest schedule found during the run
+     */
+    public Schedule run(Population population, Termination termination, 
+            GenerationListener listener) {
+        return run(population, termination, listener, null);
+    }
+    
+    /**
+     * Continues a run from a checkpoint until the termination says to stop.
+     * With the same data and settings, the run continues exactly as the run
+     * that wrote the checkpoint did.
+     * 
+     * @param checkpoint state to continue from
+     * @param termination when to stop evolving, counting from the start of 
+     * the original run
+     * @param listener called after each generation, may be null
+     * @return the fittest schedule found during the whole run
+     */
+    public Schedule resume(Checkpoint checkpoint, Termination termination, 
+            GenerationListener listener) {
+        return run(checkpoint.getPopulation(), termination, listener, checkpoint);
+    }
+    
+    /**
+     * Evolves only the given slots from now on; mutation, crossover and 
+     * local search leave every other slot as it is in the population.
+     * 
+     * @param slots indexes of the slots to evolve, or null for all slots
+     */
+    public void restrictTo(int[] slots) {
+        this.slots = slots == null ? null : slots.clone();
+        if (localSearch != null) {
+            localSearch = new LocalSearch(data, data.config.getLocalSearchSteps(), this.slots);
+        }
+    }
+    
+    /**
+     * Writes a checkpoint of every later run every few generations or 
+     * seconds, and once more when the run stops.  Checkpoints are written on
+     * a background thread.
+     * 
+     * @param file file to write checkpoints to, or null to stop checkpointing
+     * @param everyGenerations generations between checkpoints, 0 for no limit
+     * @param everySeconds seconds between checkpoints, 0 for no limit
+     */
+    public void checkpointTo(File file, int everyGenerations, long everySeconds) {
+        checkpointFile = file;
+        checkpointGenerations = everyGenerations;
+        checkpointSeconds = everySeconds;
+    }
+    
+    /**
+     * Evolves a population, from the start of a run or from a checkpoint.
+     * 
+     * @param population the starting population
+     * @param termination when to stop evolving
+     * @param listener called after each generation, may be null
+     * @param from checkpoint the population came from, or null for a new run
+     * @return the fittest schedule found during the run
+     */
+    private Schedule run(Population population, Termination termination, 
+            GenerationListener listener, Checkpoint from) {
+        CheckpointWriter checkpoints = checkpointFile == null ? null 
+                : new CheckpointWriter(checkpointFile, checkpointGenerations, checkpointSeconds);
+        long start = System.nanoTime();
+        int generation = 0;
+        int stalled = 0; // generations since best improved
+        Schedule best = null;
+        String reason;
+        long[] before = null; // metrics before the latest generation
+        double rate = 0; // mutation rate of the latest generation
+        Checkpoint resumed = from; // checkpoint resumed from, or null
+        // diversity is costly, only work it out each generation if it is used
+        boolean measure = adaptive || metricsLog || listener != null;
+        diversity = Double.NaN; // otherwise worked out by getDiversity
+        mutationRate = data.config.getMutationRate();
+        if (from != null) {
+            start -= from.getElapsedNanos();
+            generation = from.getGeneration();
+            stalled = from.getStalled();
+            best = from.getBest();
+            rand.setSeed(from.getSeed());
+            mutationRate = from.getMutationRate();
+        }
+        
+        while (true) {
+            if (from != null) {
+                // this generation was scored before the checkpoint was taken
+                from = null;
+                if (measure) diversity = population.diversity();
+            } else {
+                // keep a copy, the population's schedules are mutated in place
+                Schedule fittest = population.findFittest();
+                if (fittest == null) fittest = population.getSchedule(0);
+                if (best == null || fittest.getFitness() > best.getFitness()) {
+                    best = new Schedule(fittest);
+                    stalled = 0;
+                } else {
+                    stalled++;
+                }
+                if (measure) diversity = population.diversity();
+                if (adaptive) adaptMutationRate();
+                if (listener != null) listener.generation(generation, population, best);
+                if (before != null) {
+                    Logger.getLogger(Metrics.class.getName()).info(metrics.generationLine(
+                            generation, best.getFitness(), diversity, rate, before));
+                }
+            }
+            
+            reason = termination.check(generation, System.nanoTime() - start, 
+                    best.getFitness(), stalled);
+            if (reason != null) break;
+            
+            // the generation resumed from is already checkpointed, and taking
+            // it again would reseed the random stream a second time
+            if (checkpoints != null && (resumed == null || generation != resumed.getGeneration())
+                    && checkpoints.isDue(generation)) {
+                checkpoints.submit(checkpoint(generation, stalled, start, best, population));
+            }
+            before = metricsLog ? metrics.snapshot() : null;
+            rate = mutationRate;
+            population = evolve(population);
+            generation++;
+        }
+        
+        if (checkpoints != null) {
+            // stopping where the run resumed, the checkpoint is unchanged
+            checkpoints.finish(resumed != null && generation == resumed.getGeneration() 
+                    ? resumed : checkpoint(generation, stalled, start, best, population));
+        }
+        Logger.getLogger(GeneticAlgorithm.class.getName()).log(Level.INFO, 
+                "Stopped after {0} generations: {1}", new Object[] {generation, reason});
+        this.population = population;
+        this.generations = generation;
+        this.stopReason = reason;
+        return best;
+    }
+    
+    /**
+     * Takes a checkpoint of the run.  The random stream is reseeded from 
+     * itself and the seed saved, so a resumed run draws the same numbers as
+     * this one does from here on.
+     */
+    private Checkpoint checkpoint(int generation, int stalled, long start, 
+            Schedule best, Population population) {
+        long seed = rand.nextLong();
+        rand.setSeed(seed);
+        return new Checkpoint(generation, stalled, System.nanoTime() - start, 
+                seed, mutationRate, best, population);
+    }
+    
+    /**
+     * Raises the mutation rate when the population has lost its diversity, 
+     * since crossing over near copies changes little, and lowers it back 
+     * toward the configured rate once the population is diverse again.  The
+     * rate never goes below the configured rate: lowering it early in a run,
+     * when every population is diverse, slowed runs down.
+     */
+    private void adaptMutationRate() {
+        if (diversity < DIVERSITY_LOW) {
+            mutationRate = Math.min(MAX_MUTATION_RATE, mutationRate*RATE_STEP);
+        } else if (diversity > DIVERSITY_HIGH) {
+            mutationRate = Math.max(data.config.getMutationRate(), mutationRate/RATE_STEP);
+        }
+    }
+    
+    /**
+     * 
+     * @return mutation rate the next generation is evolved with
+     */
+    public double getMutationRate() {
+        return mutationRate;
+    }
+    
+    /**
+     * 
+     * @return crossover rate the next generation is evolved with
+     */
+    public double getCrossoverRate() {
+        return crossoverRate;
+    }
+    
+    /**
+     * 
+     * @return diversity of the latest generation, see Population.diversity()
+     */
+    public double getDiversity() {
+        if (Double.isNaN(diversity) && population != null) diversity = population.diversity();
+        return diversity;
+    }
+    
+    /**
+     * 
+     * @return number of children that came out of crossover identical to 
+     * their fitter parent, and so needed neither evaluation nor copying
+     */
+    public long getDuplicateChildren() {
+        return duplicateChildren.sum();
+    }
+    
+    /**
+     * 
+     * @return number of children that differ from their fitter parent
+     */
+    public long getDistinctChildren() {
+        return distinctChildren.sum();
+    }
+    
+    /**
+     * 
+     * @return number of moves local search has scored, 0 if it is off
+     */
+    public long getLocalSearchMoves() {
+        return localSearch == null ? 0 : localSearch.getMoves();
+    }
+    
+    /**
+     * 
+     * @return number of moves local search has kept, 0 if it is off
+     */
+    public long getLocalSearchImprovements() {
+        return localSearch == null ? 0 : localSearch.getImprovements();
+    }
+    
+    /**
+     * 
+     * @return number of generations evolved in the last run
+     */
+    public int getGenerations() {
+        return generations;
+    }
+    
+    /**
+     * 
+     * @return why the last run stopped, or null if there has not been one
+     */
+    public String getStopReason() {
+        return stopReason;
+    }
+    
+    /**
+     * 
+     * @return schedules per second scored in the latest generation
+     */
+    public double getEvaluationsPerSecond() {
+        return metrics.getEvaluationsPerSecond();
+    }
+    
+    /**
+     * 
+     * @return the final population of the last run, or null if there has 
+     * not been one
+     */
+    public Population getPopulation() {
+        return population;
+    }
+    
+    /**
+     * Evolves the current population.  The population is split by fitness, 
      * the first half is kept, while the second (less fitter) portion is mutated.
-     * Crossover is then performed N (population size) times.  Crossover involves
-     * selecting two individuals through tournament selection, filling a child
-     * schedule with sessions from each parent schedule, and putting the child
-     * in the new population.
+     * The fittest few (the elites) go into the new population unchanged, and
+     * crossover fills the rest of it.  Crossover involves selecting two 
+     * individuals through tournament selection, filling a child schedule with
+     * sessions from each parent schedule, and putting the child in the new 
+     * population.  If local search is on, the fittest children are then 
+     * refined by it.
      * 
      * @param population the population of schedules to evolve
      * @return new population of evolved individuals
      */
     public Population evolve(Population population) {
+        long start = Metrics.EVOLVE.begin();
+        long evaluations = metrics.evaluations();
         Population newPopulation = new Population();
-        population.sort(); // sort by fitness
-        // add fittest individual to new population
-        newPopulation.addSchedule(population.getSchedule(1));
+        // fitter half to the front, and the elites to the front of that half
+        population.selectTop(populationSize/2);
+        population.selectTop(elites, populationSize/2);
+        // add fittest individuals to new population
+        for (int i=0; i<elites; i++) {
+            newPopulation.addSchedule(population.getSchedule(i));
+        }
         
         // mutate second half (less fit individuals) of population
-        for (int i=populationSize/2; i<populationSize; i++) {
-            mutate(population.getSchedule(i));
-        }
+        forEachRange(populationSize/2, populationSize, (from, to, r) -> {
+            for (int i=from; i<to; i++) {
+                mutate(population.getSchedule(i), r);
+            }
+        });
         
-        // crossover schedule N (population size) times, add child to new pop
-        for (int i=1; i<populationSize; i++) {            
-            Schedule s1 = tournamentSelection(population);
-            Schedule s2 = tournamentSelection(population);
-            newPopulation.addSchedule(crossover(s1, s2));            
+        // crossover to fill the rest of the new population
+        Schedule[] children = new Schedule[populationSize];
+        forEachRange(elites, populationSize, (from, to, r) -> {
+            for (int i=from; i<to; i++) {            
+                Schedule s1 = tournamentSelection(population, r);
+                Schedule s2 = tournamentSelection(population, r);
+                children[i] = crossover(s1, s2, r);
+            }
+        });
+        // refine the fittest children with local search
+        if (localSearch != null) {
+            Population ranked = new Population();
+            for (int i=elites; i<populationSize; i++) {
+                ranked.addSchedule(children[i]);
+            }
+            int k = Math.min(localSearchTopK, ranked.size());
+            ranked.selectTop(k);
+            forEachRange(0, k, (from, to, r) -> {
+                for (int i=from; i<to; i++) {
+                    localSearch.improve(ranked.getSchedule(i), r);
+                }
+            });
+        }
+        for (int i=elites; i<populationSize; i++) {
+            newPopulation.addSchedule(children[i]);
         }
         
         // update fittest individual in population
         newPopulation.findFittest();
         
+        metrics.end(Metrics.EVOLVE, start);
+        metrics.setEvaluationsPerSecond((metrics.evaluations() - evaluations)*1e9
+                / Math.max(1, System.nanoTime() - start));
+        Metrics.generationEnded();
         return newPopulation;
     }
     
@@ -65,34 +431,53 @@ public class GeneticAlgorithm {
      * For each session in a schedule, a mutation is performed if the random
      * number is less than the mutation rate.  If a mutation is performed,
      * then there is a 50% chance that the new session will be a dummy session
-     * and a 50% chance the new session will be a new randomly created session.
+     * and a 50% chance the new session will be a new randomly created session
+     * (drawn from the people and rooms available in the slot when the run is
+     * guided).
      * 
      * @param s schedule to mutate
      * @return mutated schedule
      */
     public Schedule mutate(Schedule s) {
+        return mutate(s, rand);
+    }
+    
+    /**
+     * Mutates a schedule using the given random stream.
+     * 
+     * @param s schedule to mutate
+     * @param rand random stream owned by the calling thread
+     * @return mutated schedule
+     */
+    Schedule mutate(Schedule s, Random rand) {
+        long start = Metrics.MUTATION.begin();
         // iterate through sessions in schedule
-        for (int i=0; i<s.size(); i++) {
+        int count = slots == null ? s.size() : slots.length;
+        for (int n=0; n<count; n++) {
+            int i = slots == null ? n : slots[n];
             // if random number is less than mutation rate, reassign dummy or 
             // new random session to slot
-            if (rand.nextDouble() < MUTATION_RATE) {
+            if (rand.nextDouble() < mutationRate) {
                 if (rand.nextDouble() < .5) // mutate to dummy
-                    s.setSession(new Session(null,null,null), i);
+                    s.setGene(Session.EMPTY, i);
+                else if (guided) // mutate to available session
+                    s.setGene(Session.availableGene(data, i, rand), i);
                 else // mutate to new random session
-                    s.setSession(new Session(data), i);
+                    s.setGene(Session.randomGene(data, rand), i);
             }                
         }
         
         // update schedules fitness after mutation
-       s.calcFitness();
-       return s;
+        s.calcFitness();
+        metrics.end(Metrics.MUTATION, start);
+        return s;
     }
     
     /**
      * For each session in a schedule, a random number determines whether a 
-     * crossover event occurs.  A new blank schedule is created and for each
-     * slot, a random number determines whether the slot will be filled with 
-     * the fitter or the less fit of the two parents passed in.  If the random
+     * crossover event occurs.  A copy of the fitter parent is created and for
+     * each slot, a random number determines whether the slot will keep the 
+     * fitter parent's session or take the less fit parent's.  If the random
      * number is greater than the crossover rate, than the fitter parent's 
      * slot is used, if not, the less fit parent's slot is used.
      * 
@@ -100,7 +485,19 @@ public class GeneticAlgorithm {
      * @param s2 another schedule to crossover
      */
     public Schedule crossover(Schedule s1, Schedule s2) {
-        Schedule newSchedule = new Schedule(data, false); // new empty schedule
+        return crossover(s1, s2, rand);
+    }
+    
+    /**
+     * Crosses over two schedules using the given random stream.
+     * 
+     * @param s1 one of the schedules to crossover
+     * @param s2 another schedule to crossover
+     * @param rand random stream owned by the calling thread
+     * @return child schedule
+     */
+    Schedule crossover(Schedule s1, Schedule s2, Random rand) {
+        long start = Metrics.CROSSOVER.begin();
         Schedule fitter, lessFit;
         // find the fitter schedule
         if (s1.getFitness() < s2.getFitness()) {
@@ -109,17 +506,24 @@ public class GeneticAlgorithm {
             fitter = s1; lessFit = s2;
         }
         
-        // iterate through the schedule, if random num is less than crossover 
-        // rate, fill in lessfit session, else fill in fitter session
-        for (int i=0; i<newSchedule.size(); i++) {
-            if (rand.nextDouble() < CROSSOVER_RATE) {
-                newSchedule.setSession(lessFit.getSession(i), i);
-            } else {
-                newSchedule.setSession(fitter.getSession(i), i);
+        // start from a copy of the fitter schedule, then iterate through the 
+        // schedule, if random num is less than crossover rate, fill in 
+        // lessfit session; only slots that differ change the fitness
+        Schedule newSchedule = new Schedule(fitter);
+        int count = slots == null ? newSchedule.size() : slots.length;
+        for (int n=0; n<count; n++) {
+            int i = slots == null ? n : slots[n];
+            if (rand.nextDouble() < crossoverRate) {
+                newSchedule.setGene(lessFit.getGene(i), i);
             }
         }
         
-        newSchedule.calcFitness();
+        // a child identical to its fitter parent still shares its arrays
+        if (newSchedule.hash() == fitter.hash()) 
+            duplicateChildren.increment();
+        else
+            distinctChildren.increment();
+        metrics.end(Metrics.CROSSOVER, start);
         return newSchedule;
     }
     
@@ -128,10 +532,12 @@ public class GeneticAlgorithm {
      * of the two.
      * 
      * @param population group to select individuals from
+     * @param rand random stream owned by the calling thread
      * @return the schedule with the highest fitness from the ones that were 
      * selected
      */
-    private Schedule tournamentSelection(Population population) {
+    Schedule tournamentSelection(Population population, Random rand) {
+        long start = Metrics.SELECTION.begin();
         Schedule best = null;
         Schedule ind;
         for (int i=0; i<2; i++) {
@@ -139,6 +545,64 @@ public class GeneticAlgorithm {
             if (best == null || best.getFitness() < ind.getFitness()) 
                  best = ind;
         }
+        metrics.end(Metrics.SELECTION, start);
         return best;
     }   
+
+    /**
+     * Runs a task over the index range [from, to).  With no executor the task
+     * runs once on the calling thread using this algorithm's random stream.
+     * Otherwise the range is split into chunks that run on the executor, each
+     * with a random stream seeded from this algorithm's stream, and the call
+     * returns once every chunk has finished.
+     * 
+     * @param from first index, inclusive
+     * @param to last index, exclusive
+     * @param task work to perform on each chunk
+     */
+    private void forEachRange(int from, int to, RangeTask task) {
+        if (executor == null || to - from < 2) {
+            task.run(from, to, rand);
+            return;
+        }
+        
+        int chunks = Math.min(to - from, parallelism * 4);
+        List<Callable<Void>> tasks = new ArrayList<>(chunks);
+        for (int c=0; c<chunks; c++) {
+            int start = from + (int) ((long) (to - from) * c / chunks);
+            int end = from + (int) ((long) (to - from) * (c + 1) / chunks);
+            Random chunkRand = new Random(rand.nextLong());
+            tasks.add(() -> { task.run(start, end, chunkRand); return null; });
+        }
+        
+        try {
+            for (Future<Void> f : executor.invokeAll(tasks)) {
+                f.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Evolution interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Evolution failed", ex.getCause());
+        }
+    }
+    
+    /**
+     * Notified after each generation of a run.
+     */
+    public interface GenerationListener {
+        /**
+         * @param generation number of generations evolved so far
+         * @param population the current population
+         * @param best the fittest schedule found so far in the run
+         */
+        void generation(int generation, Population population, Schedule best);
+    }
+    
+    /**
+     * A unit of work over a range of population indexes.
+     */
+    private interface RangeTask {
+        void run(int from, int to, Random rand);
+    }
 }
@@ -0,0 +1,71 @@
+package tutorscheduler;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes a schedule as an HTML table with a row for each hour of the day and
+ * a column for each day of the week.  Schedules of more than one week get a
+ * headed table for each week.
+ * 
+ * @author Stephanie Deen
+ */
+public class HtmlExporter implements ScheduleExporter {
+
+    @Override
+    public void export(Schedule schedule, Writer out) throws IOException {
+        out.write("<html><head><link rel=\"stylesheet\" href=\"style.css\"><title>Tutor Schedule</title></head><body>");
+        
+        RunConfig config = schedule.getConfig();
+        for (int week=0; week<config.getWeeks(); week++) {
+            if (config.getWeeks() > 1) out.write("<h2>Week " + (week + 1) + "</h2>");
+            writeWeek(schedule, week*config.slotsPerWeek(), out);
+        }
+        out.write("</body></html>");
+        out.flush();
+    }
+    
+    /**
+     * Writes the table for one week.
+     * 
+     * @param schedule schedule to write
+     * @param start index of the week's first slot
+     * @param out writer to write to
+     * @throws IOException if writing fails
+     */
+    private void writeWeek(Schedule schedule, int start, Writer out) throws IOException {
+        RunConfig config = schedule.getConfig();
+        int hoursADay = config.getHoursADay();
+        
+        out.write("<table><thead><th></th>");
+        for (int day=0; day<config.getDaysAWeek(); day++) {
+            out.write("<th>" + ScheduleExporter.day(config, day*hoursADay) + "</th>");
+        }
+        out.write("</thead><tbody>");
+        
+        for (int hour=0; hour<hoursADay; hour++) {
+            out.write("<tr>");
+            out.write("<td class='times'>" + ScheduleExporter.time(config, hour) + "</td>");
+            
+            for (int day=0; day<config.getDaysAWeek(); day++) {
+                String session = schedule.getSession(start + day*hoursADay + hour).printSession();
+                if (session == null) 
+                    out.write("<td></td>");
+                else
+                    out.write("<td>" + escape(session) + "</td>");
+            }
+            out.write("</tr>");
+        }
+        
+        out.write("</tbody></table>");
+    }
+    
+    /**
+     * 
+     * @param text text to put in the page
+     * @return text with HTML special characters escaped
+     */
+    private static String escape(String text) {
+        return text.replace("&", "&amp;").replace("<", "&lt;").replace(">", "&gt;");
+    }
+}
@@ -0,0 +1,172 @@
+package tutorscheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Evolves several independent populations (islands), each on its own thread.
+ * Every few generations each island sends copies of its fittest schedules to
+ * the next island in a ring, which swaps them in for its least fit schedules.
+ * Migrants are passed through lock-free mailboxes, so an island never waits
+ * on another one; it takes whatever has arrived when it next migrates.
+ *
+ * @author Stephanie Deen
+ */
+public class IslandModel {
+
+    private final Data data;
+    private final int islands;
+    private final int migrationInterval; // generations between migrations
+    private final int migrants; // schedules sent on each migration
+    private final List<ConcurrentLinkedQueue<Schedule>> mailboxes;
+    private final Population[] populations;
+    private final Schedule[] fittest; // fittest schedule each island found
+
+    /**
+     * Constructor
+     *
+     * @param data data from the text files
+     * @param islands number of populations to evolve side by side
+     * @param migrationInterval number of generations between migrations
+     * @param migrants number of fittest schedules each island sends, cut to
+     * half the population
+     * @throws IllegalArgumentException if there is no island, the interval is
+     * not positive, or migrants is negative or not less than the population
+     */
+    public IslandModel(Data data, int islands, int migrationInterval, int migrants) {
+        if (islands < 1)
+            throw new IllegalArgumentException("islands must be at least 1: " + islands);
+        if (migrationInterval < 1)
+            throw new IllegalArgumentException("migrationInterval must be at least 1: " 
+                    + migrationInterval);
+        if (migrants < 0 || migrants >= data.config.getPopulationSize())
+            throw new IllegalArgumentException("migrants must be from 0 to less than "
+                    + "the population of " + data.config.getPopulationSize() + ": " + migrants);
+        this.data = data;
+        this.islands = islands;
+        this.migrationInterval = migrationInterval;
+        this.migrants = Math.min(migrants, data.config.getPopulationSize()/2);
+        this.populations = new Population[islands];
+        this.fittest = new Schedule[islands];
+        mailboxes = new ArrayList<>(islands);
+        for (int i=0; i<islands; i++) {
+            mailboxes.add(new ConcurrentLinkedQueue<>());
+        }
+    }
+
+    /**
+     * Evolves every island for the given number of generations.
+     *
+     * @param generations number of generations each island evolves
+     * @return the fittest schedule found on any island
+     */
+    public Schedule evolve(int generations) {
+        return evolve(new Termination(generations));
+    }
+
+    /**
+     * Evolves every island until the termination says to stop.  Each island
+     * checks the termination against its own progress.
+     *
+     * @param termination when each island stops evolving
+     * @return the fittest schedule found on any island
+     */
+    public Schedule evolve(Termination termination) {
+        ExecutorService executor = Executors.newFixedThreadPool(islands);
+        List<Callable<Void>> tasks = new ArrayList<>(islands);
+        for (int i=0; i<islands; i++) {
+            final int island = i;
+            tasks.add(() -> { evolveIsland(island, termination); return null; });
+        }
+
+        try {
+            for (Future<Void> result : executor.invokeAll(tasks)) {
+                result.get();
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Island evolution interrupted", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Island evolution failed", ex.getCause());
+        } finally {
+            executor.shutdown();
+        }
+
+        return getFittest();
+    }
+
+    /**
+     * Evolves a single island, migrating every migrationInterval generations.
+     *
+     * @param island index of the island
+     * @param termination when the island stops evolving
+     */
+    private void evolveIsland(int island, Termination termination) {
+        GeneticAlgorithm ga = new GeneticAlgorithm(data);
+        fittest[island] = ga.run(new Population(data), termination, 
+                (generation, population, best) -> {
+            if (islands > 1 && generation > 0 && generation % migrationInterval == 0) {
+                migrate(island, population);
+            }
+        });
+        populations[island] = ga.getPopulation();
+    }
+
+    /**
+     * Sends copies of the island's fittest schedules to the next island and
+     * replaces the island's least fit schedules with any that have arrived.
+     *
+     * @param island index of the island
+     * @param population the island's current population
+     */
+    private void migrate(int island, Population population) {
+        // least fit to the back, fittest to the front
+        int size = population.size();
+        population.selectTop(size - migrants);
+        population.selectTop(migrants, size - migrants);
+
+        // send copies so the receiving island can mutate them freely
+        ConcurrentLinkedQueue<Schedule> next = mailboxes.get((island + 1) % islands);
+        for (int i=0; i<migrants; i++) {
+            next.offer(new Schedule(population.getSchedule(i)));
+        }
+
+        // replace the least fit schedules with the migrants received; any
+        // more than that wait for the next migration
+        ConcurrentLinkedQueue<Schedule> inbox = mailboxes.get(island);
+        int slot = size - 1;
+        Schedule migrant;
+        while (slot >= size - migrants && (migrant = inbox.poll()) != null) {
+            population.setSchedule(slot--, migrant);
+        }
+        population.findFittest();
+    }
+
+    /**
+     *
+     * @return the fittest schedule of all islands after evolving
+     */
+    public Schedule getFittest() {
+        Schedule best = null;
+        for (Schedule s : fittest) {
+            if (best == null || (s != null && s.getFitness() > best.getFitness()))
+                best = s;
+        }
+        return best;
+    }
+
+    /**
+     *
+     * @param i index of the island
+     * @return the island's population after evolving
+     */
+    public Population getPopulation(int i) {
+        return populations[i];
+    }
+}
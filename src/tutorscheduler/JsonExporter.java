@@ -0,0 +1,60 @@
+package tutorscheduler;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Writes a schedule as a JSON object holding its fitness and a list of the 
+ * slots that have a session.
+ * 
+ * @author Stephanie Deen
+ */
+public class JsonExporter implements ScheduleExporter {
+
+    @Override
+    public void export(Schedule schedule, Writer out) throws IOException {
+        int slotsPerWeek = schedule.getConfig().slotsPerWeek();
+        out.write("{\"fitness\":" + schedule.getFitness() + ",\"sessions\":[");
+        boolean first = true;
+        for (int i=0; i<schedule.size(); i++) {
+            Session session = schedule.getSession(i);
+            if (session.getRoom() == null) continue; // dummy session
+            
+            if (!first) out.write(',');
+            first = false;
+            out.write("{\"slot\":" + i);
+            out.write(",\"week\":" + (i / slotsPerWeek + 1));
+            out.write(",\"day\":" + quote(ScheduleExporter.day(schedule.getConfig(), i)));
+            out.write(",\"time\":" + quote(ScheduleExporter.time(schedule.getConfig(), i)));
+            out.write(",\"room\":" + quote(session.getRoom().getName()));
+            out.write(",\"tutor\":" + quote(session.getTutor().getName()));
+            out.write(",\"supervisor\":" + quote(session.getSupervisor().getName()));
+            out.write('}');
+        }
+        out.write("]}\n");
+        out.flush();
+    }
+    
+    /**
+     * 
+     * @param text string value
+     * @return the value as a quoted and escaped JSON string
+     */
+    static String quote(String text) {
+        StringBuilder sb = new StringBuilder(text.length() + 2).append('"');
+        for (int i=0; i<text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '"': sb.append("\\\""); break;
+                case '\\': sb.append("\\\\"); break;
+                case '\n': sb.append("\\n"); break;
+                case '\r': sb.append("\\r"); break;
+                case '\t': sb.append("\\t"); break;
+                default:
+                    if (c < 0x20) sb.append(String.format("\\u%04x", (int) c));
+                    else sb.append(c);
+            }
+        }
+        return sb.append('"').toString();
+    }
+}
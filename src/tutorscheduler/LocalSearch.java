@@ -0,0 +1,117 @@
+package tutorscheduler;
+
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * First improvement hill climbing on a single schedule.  Each step visits a
+ * random slot and tries, in turn, swapping its tutor, supervisor or room for
+ * one available in that slot, or emptying it (filling it, if it is empty).
+ * The first move that raises the fitness is kept and the rest are undone.
+ * Every move is scored from the change to its one slot through setGene, so
+ * a step costs a few constant time updates no matter the size of the
+ * schedule.
+ *
+ * @author Stephanie Deen
+ */
+class LocalSearch {
+
+    private static final int MOVES = 4; // tutor, supervisor, room, empty
+
+    private final Data data;
+    private final int steps;
+    private final int[] slots; // slots that may change, null for all
+    private final LongAdder moves = new LongAdder();
+    private final LongAdder improvements = new LongAdder();
+
+    /**
+     * Constructor
+     *
+     * @param data data the schedules are built from
+     * @param steps slots visited per schedule
+     * @param slots the only slots that may change, or null for all slots
+     */
+    LocalSearch(Data data, int steps, int[] slots) {
+        this.data = data;
+        this.steps = steps;
+        this.slots = slots;
+    }
+
+    /**
+     * Improves a schedule in place.  Safe to call from several threads on
+     * different schedules.
+     *
+     * @param s schedule to improve
+     * @param rand random stream owned by the calling thread
+     * @return number of moves kept
+     */
+    int improve(Schedule s, Random rand) {
+        double score = s.exactFitness();
+        int kept = 0;
+        int tried = 0;
+        for (int step=0; step<steps; step++) {
+            int i = slots == null ? rand.nextInt(s.size()) : slots[rand.nextInt(slots.length)];
+            long old = s.getGene(i);
+            for (int m=0; m<MOVES; m++) {
+                long gene = move(old, i, m, rand);
+                if (gene == old) continue;
+                tried++;
+                s.setGene(gene, i);
+                double after = s.exactFitness();
+                if (after > score) {
+                    score = after;
+                    kept++;
+                    break;
+                }
+                s.setGene(old, i); // undo
+            }
+        }
+        moves.add(tried);
+        improvements.add(kept);
+        return kept;
+    }
+
+    /**
+     * @param old gene in the slot
+     * @param i index of the slot
+     * @param m which move to make
+     * @param rand random stream
+     * @return gene after the move, or old if the move does not apply
+     */
+    private long move(long old, int i, int m, Random rand) {
+        if (old == Session.EMPTY) {
+            return m == 0 ? Session.availableGene(data, i, rand) : old;
+        }
+        int room = Session.room(old);
+        int tutor = Session.tutor(old);
+        int supervisor = Session.supervisor(old);
+        switch (m) {
+            case 0:
+                tutor = Session.pick(data.tutorsBySlot[i], data.tutors.size(), rand);
+                break;
+            case 1:
+                supervisor = Session.pick(data.supervisorsBySlot[i], data.supervisors.size(), rand);
+                break;
+            case 2:
+                room = Session.pick(data.roomsBySlot[i], data.rooms.size(), rand);
+                break;
+            default:
+                return Session.EMPTY;
+        }
+        return Session.encode(room, tutor, supervisor);
+    }
+
+    /**
+     * @return number of moves scored so far
+     */
+    long getMoves() {
+        return moves.sum();
+    }
+
+    /**
+     * @return number of moves kept so far
+     */
+    long getImprovements() {
+        return improvements.sum();
+    }
+}
@@ -0,0 +1,392 @@
+package tutorscheduler;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * Counts and times the phases of a run: loading data, evolving a
+ * generation, and the selection, crossover, mutation and fitness
+ * calculations within it.  Each phase keeps a count, a total time and a
+ * latency histogram, all updated without locks so that worker threads never
+ * wait on each other.  The histogram has four buckets to every doubling of
+ * latency, so percentiles are accurate to within a quarter.
+ *
+ * A selection or a fitness calculation (which setGene makes on every
+ * change) takes tens of nanoseconds, as long as reading the clock, so only
+ * a random one in SAMPLE_EVERY of them is timed; they are still all
+ * counted, and their total time is estimated from the sample.
+ *
+ * The figures are JVM-wide and published through the platform MBean
+ * server, see MetricsMXBean.  Each run also keeps its own figures in a Run,
+ * which its per-generation log line is made from, so runs side by side
+ * (islands, batches, service jobs) do not mix into each other's lines.
+ *
+ * @author Stephanie Deen
+ */
+public final class Metrics implements MetricsMXBean {
+
+    static final int SAMPLE_EVERY = 64;
+
+    static final Phase DATA_LOAD = new Phase("dataLoad", 1);
+    static final Phase EVOLVE = new Phase("evolve", 1);
+    static final Phase SELECTION = new Phase("selection", SAMPLE_EVERY);
+    static final Phase CROSSOVER = new Phase("crossover", 1);
+    static final Phase MUTATION = new Phase("mutation", 1);
+    static final Phase FITNESS = new Phase("fitness", SAMPLE_EVERY);
+    private static final Phase[] PHASES = {DATA_LOAD, EVOLVE, SELECTION, CROSSOVER, MUTATION, FITNESS};
+
+    private static final Metrics INSTANCE = new Metrics();
+    private static final long WINDOW_NANOS = 1_000_000_000L;
+    // rate of every run together over the latest window of a second
+    private static volatile double evaluationsPerSecond;
+    private static volatile long windowStart = System.nanoTime();
+    private static long windowEvaluations;
+
+    static {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(INSTANCE,
+                    new ObjectName("tutorscheduler:type=Metrics"));
+        } catch (JMException | SecurityException ex) {
+            // metrics are still recorded and logged, just not published
+            Logger.getLogger(Metrics.class.getName()).log(Level.WARNING,
+                    "Could not register metrics MBean", ex);
+        }
+    }
+
+    private Metrics() {
+    }
+
+    /**
+     * @return the metrics of this JVM
+     */
+    public static Metrics get() {
+        return INSTANCE;
+    }
+
+    /**
+     * @return schedules scored so far, see getEvaluations()
+     */
+    static long evaluations() {
+        return MUTATION.count.sum() + CROSSOVER.count.sum();
+    }
+
+    /**
+     * Called at the end of each generation of any run.  Once a second has
+     * passed since the last window closed, works out the rate every run
+     * together scored schedules at over that window.
+     */
+    static void generationEnded() {
+        long now = System.nanoTime();
+        if (now - windowStart < WINDOW_NANOS) return;
+        synchronized (Metrics.class) {
+            if (now - windowStart < WINDOW_NANOS) return;
+            long evaluations = evaluations();
+            evaluationsPerSecond = (evaluations - windowEvaluations)*1e9/(now - windowStart);
+            windowStart = now;
+            windowEvaluations = evaluations;
+        }
+    }
+
+    @Override
+    public long getGenerations() {
+        return EVOLVE.count.sum();
+    }
+
+    @Override
+    public long getEvaluations() {
+        return evaluations();
+    }
+
+    @Override
+    public double getEvaluationsPerSecond() {
+        // no generation has ended for a whole window, nothing is running
+        return System.nanoTime() - windowStart > 2*WINDOW_NANOS ? 0 : evaluationsPerSecond;
+    }
+
+    @Override
+    public List<PhaseStats> getPhases() {
+        List<PhaseStats> stats = new ArrayList<>(PHASES.length);
+        for (Phase phase : PHASES) {
+            stats.add(new PhaseStats(phase));
+        }
+        return stats;
+    }
+
+    @Override
+    public void reset() {
+        for (Phase phase : PHASES) {
+            phase.reset();
+        }
+        synchronized (Metrics.class) {
+            evaluationsPerSecond = 0;
+            windowStart = System.nanoTime();
+            windowEvaluations = evaluations();
+        }
+    }
+
+    /**
+     * One timed phase.
+     */
+    static final class Phase {
+        private static final int BUCKETS = 256;
+
+        private final String name;
+        private final int sampleEvery; // time one call in this many
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sampledNanos = new LongAdder();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+
+        Phase(String name, int sampleEvery) {
+            this.name = name;
+            this.sampleEvery = sampleEvery;
+        }
+
+        /**
+         * @return the clock reading to pass to end, or 0 if this call is not
+         * in the sample
+         */
+        long begin() {
+            if (sampleEvery > 1 && ThreadLocalRandom.current().nextInt(sampleEvery) != 0)
+                return 0;
+            return System.nanoTime();
+        }
+
+        /**
+         * Counts a call, and times it if it was sampled.
+         *
+         * @param start what begin returned when the call started
+         * @return time the call took, or 0 if it was not sampled
+         */
+        long end(long start) {
+            count.increment();
+            if (start == 0) return 0;
+            long nanos = System.nanoTime() - start;
+            sampledNanos.add(nanos);
+            histogram.incrementAndGet(bucket(nanos));
+            return nanos;
+        }
+
+        /**
+         * @return total time spent in the phase, estimated from the sample
+         */
+        long totalNanos() {
+            return sampledNanos.sum()*sampleEvery;
+        }
+
+        private void reset() {
+            count.reset();
+            sampledNanos.reset();
+            for (int i=0; i<BUCKETS; i++) {
+                histogram.set(i, 0);
+            }
+        }
+
+        /**
+         * @return bucket of a latency: four to each power of two
+         */
+        static int bucket(long nanos) {
+            if (nanos < 4) return (int) Math.max(0, nanos);
+            int bits = 63 - Long.numberOfLeadingZeros(nanos);
+            return 4*(bits - 1) + (int) ((nanos >>> (bits - 2)) & 3);
+        }
+
+        /**
+         * @return highest latency that falls in a bucket
+         */
+        static long upperBound(int bucket) {
+            if (bucket < 4) return bucket;
+            int bits = bucket/4 + 1;
+            long lower = (long) (4 + bucket%4) << (bits - 2);
+            return lower + (1L << (bits - 2)) - 1;
+        }
+
+        /**
+         * @param fraction share of timed calls, from 0 to 1
+         * @return latency in nanoseconds that the share of calls took no
+         * longer than
+         */
+        long percentile(double fraction) {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i=0; i<BUCKETS; i++) {
+                counts[i] = histogram.get(i);
+                total += counts[i];
+            }
+            if (total == 0) return 0;
+            long rank = (long) Math.ceil(fraction*total);
+            long seen = 0;
+            for (int i=0; i<BUCKETS; i++) {
+                seen += counts[i];
+                if (seen >= Math.max(1, rank)) return upperBound(i);
+            }
+            return upperBound(BUCKETS - 1);
+        }
+    }
+
+    /**
+     * The figures of one run, kept next to the JVM-wide ones.  Holds the
+     * time in evolve, selection, crossover and mutation and the schedules
+     * scored, for the per-generation log line and the run's own rate.
+     * Fitness calculations are not kept per run: Schedule does not know its
+     * run, and they are timed within crossover and mutation anyway.
+     */
+    static final class Run {
+        private static final Phase[] TIMED = {EVOLVE, SELECTION, CROSSOVER, MUTATION};
+
+        private final LongAdder[] nanos = new LongAdder[TIMED.length];
+        private final LongAdder evaluations = new LongAdder();
+        private volatile double evaluationsPerSecond;
+
+        Run() {
+            for (int i=0; i<TIMED.length; i++) {
+                nanos[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Ends a call of a phase, for the JVM and for this run.
+         *
+         * @param phase EVOLVE, SELECTION, CROSSOVER or MUTATION
+         * @param start what the phase's begin returned
+         */
+        void end(Phase phase, long start) {
+            long took = phase.end(start);
+            if (phase == CROSSOVER || phase == MUTATION) evaluations.increment();
+            if (took == 0) return;
+            for (int i=0; i<TIMED.length; i++) {
+                if (TIMED[i] == phase) nanos[i].add(took*phase.sampleEvery);
+            }
+        }
+
+        /**
+         * @return schedules this run has scored
+         */
+        long evaluations() {
+            return evaluations.sum();
+        }
+
+        /**
+         * @return schedules per second this run scored in its latest
+         * generation
+         */
+        double getEvaluationsPerSecond() {
+            return evaluationsPerSecond;
+        }
+
+        void setEvaluationsPerSecond(double rate) {
+            evaluationsPerSecond = rate;
+        }
+
+        /**
+         * @return time of each phase so far, then the evaluations, to pass
+         * to generationLine
+         */
+        long[] snapshot() {
+            long[] totals = new long[TIMED.length + 1];
+            for (int i=0; i<TIMED.length; i++) {
+                totals[i] = nanos[i].sum();
+            }
+            totals[TIMED.length] = evaluations.sum();
+            return totals;
+        }
+
+        /**
+         * Describes a generation of this run as key=value pairs, with the
+         * time each phase took over every thread since the snapshot.
+         *
+         * @param generation number of the generation
+         * @param best fitness of the fittest schedule so far
+         * @param diversity diversity of the population
+         * @param mutationRate mutation rate the generation was evolved with
+         * @param before snapshot taken before the generation was evolved
+         * @return the line
+         */
+        String generationLine(int generation, int best, double diversity,
+                double mutationRate, long[] before) {
+            long[] after = snapshot();
+            StringBuilder line = new StringBuilder();
+            line.append("generation=").append(generation)
+                .append(" best=").append(best)
+                .append(String.format(Locale.ROOT, " diversity=%.3f mutationRate=%.3f",
+                        diversity, mutationRate));
+            for (int i=0; i<TIMED.length; i++) {
+                line.append(String.format(Locale.ROOT, " %sMs=%.3f",
+                        TIMED[i].name, (after[i] - before[i])/1e6));
+            }
+            line.append(" evaluations=").append(after[TIMED.length] - before[TIMED.length])
+                .append(String.format(Locale.ROOT, " evaluationsPerSecond=%.0f",
+                        evaluationsPerSecond));
+            return line.toString();
+        }
+    }
+
+    /**
+     * Figures of one phase, as seen through JMX.
+     */
+    public static final class PhaseStats {
+        private final String name;
+        private final long count;
+        private final double totalMillis;
+        private final double p50Micros;
+        private final double p99Micros;
+        private final double maxMicros;
+
+        PhaseStats(Phase phase) {
+            this.name = phase.name;
+            this.count = phase.count.sum();
+            this.totalMillis = phase.totalNanos()/1e6;
+            this.p50Micros = phase.percentile(.5)/1e3;
+            this.p99Micros = phase.percentile(.99)/1e3;
+            this.maxMicros = phase.percentile(1)/1e3;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return calls of the phase
+         */
+        public long getCount() {
+            return count;
+        }
+
+        /**
+         * @return time spent in the phase over every thread, estimated for
+         * sampled phases
+         */
+        public double getTotalMillis() {
+            return totalMillis;
+        }
+
+        /**
+         * @return median latency of a call
+         */
+        public double getP50Micros() {
+            return p50Micros;
+        }
+
+        /**
+         * @return latency 99% of calls took no longer than
+         */
+        public double getP99Micros() {
+            return p99Micros;
+        }
+
+        /**
+         * @return latency of the slowest call, to within its bucket
+         */
+        public double getMaxMicros() {
+            return maxMicros;
+        }
+    }
+}
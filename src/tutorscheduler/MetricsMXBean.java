@@ -0,0 +1,40 @@
+package tutorscheduler;
+
+import java.util.List;
+
+/**
+ * Management interface of the scheduler's metrics, registered with the
+ * platform MBean server as tutorscheduler:type=Metrics.  Figures cover every
+ * run in the JVM since it started or since the last reset; each run's own
+ * figures go to its per-generation log line instead.
+ *
+ * @author Stephanie Deen
+ */
+public interface MetricsMXBean {
+
+    /**
+     * @return generations evolved
+     */
+    long getGenerations();
+
+    /**
+     * @return schedules scored: children of crossover and mutated schedules
+     */
+    long getEvaluations();
+
+    /**
+     * @return schedules scored per second by every run together, over
+     * the latest second in which a generation ended
+     */
+    double getEvaluationsPerSecond();
+
+    /**
+     * @return count and latency of each phase
+     */
+    List<Metrics.PhaseStats> getPhases();
+
+    /**
+     * Sets every count and histogram back to zero.
+     */
+    void reset();
+}
@@ -0,0 +1,316 @@
+package tutorscheduler;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Multi-objective evolution (NSGA-II).  Instead of averaging them into one
+ * fitness, the three scores of a schedule (availability, hours and weeks
+ * within the session limit) are kept apart, and one run returns every
+ * schedule no other schedule beats on all three at once: the Pareto front.
+ *
+ * Each generation, children are bred from parents picked by front and
+ * crowding, with GeneticAlgorithm's crossover and mutation.  Parents and
+ * children are then sorted into fronts and the next population is filled
+ * front by front, breaking the last front by crowding distance so the
+ * front stays spread out.  Sorting uses efficient non-dominated sort with
+ * binary search, which compares each schedule against only a few fronts and
+ * scales to large populations far better than comparing every pair.
+ *
+ * @author Stephanie Deen
+ */
+public class Nsga2 {
+
+    private static final int OBJECTIVES = 3;
+
+    private final Data data;
+    private final GeneticAlgorithm ga; // supplies crossover and mutation
+    private final int populationSize;
+    private final Random rand = new Random();
+    private int generations; // generations evolved in the last run
+    private String stopReason; // why the last run stopped
+
+    /**
+     * Constructor
+     *
+     * @param data data from the text files
+     */
+    public Nsga2(Data data) {
+        this.data = data;
+        this.ga = new GeneticAlgorithm(data);
+        this.populationSize = data.config.getPopulationSize();
+    }
+
+    /**
+     * Evolves a new population until the termination says to stop.  The
+     * termination's target and stall limits apply to the best single fitness
+     * on the front.
+     *
+     * @param termination when to stop evolving
+     * @return the Pareto front of the final population, one schedule per
+     * trade-off, in order of availability score
+     */
+    public List<Schedule> run(Termination termination) {
+        long start = System.nanoTime();
+        Schedule[] population = new Schedule[populationSize];
+        for (int i=0; i<populationSize; i++) {
+            population[i] = new Schedule(data, true);
+        }
+        int[] rank = new int[populationSize];
+        double[] crowding = new double[populationSize];
+        rankAndCrowd(population, rank, crowding);
+
+        int generation = 0;
+        int stalled = 0;
+        int best = -1;
+        String reason;
+        while (true) {
+            int fittest = 0;
+            for (Schedule s : population) {
+                fittest = Math.max(fittest, s.getFitness());
+            }
+            if (fittest > best) {
+                best = fittest;
+                stalled = 0;
+            } else {
+                stalled++;
+            }
+            reason = termination.check(generation, System.nanoTime() - start, best, stalled);
+            if (reason != null) break;
+
+            // breed children from parents picked by rank, then crowding
+            Schedule[] combined = Arrays.copyOf(population, populationSize*2);
+            for (int i=0; i<populationSize; i++) {
+                Schedule s1 = population[tournament(rank, crowding)];
+                Schedule s2 = population[tournament(rank, crowding)];
+                combined[populationSize + i] = ga.mutate(ga.crossover(s1, s2, rand), rand);
+            }
+            population = select(combined, rank, crowding);
+            generation++;
+        }
+
+        Logger.getLogger(Nsga2.class.getName()).log(Level.INFO,
+                "Stopped after {0} generations: {1}", new Object[] {generation, reason});
+        this.generations = generation;
+        this.stopReason = reason;
+        return front(population, rank);
+    }
+
+    /**
+     * Picks the better of two random members, by front then by crowding.
+     *
+     * @return index of the winner
+     */
+    private int tournament(int[] rank, double[] crowding) {
+        int a = rand.nextInt(populationSize);
+        int b = rand.nextInt(populationSize);
+        if (rank[a] != rank[b]) return rank[a] < rank[b] ? a : b;
+        return crowding[a] >= crowding[b] ? a : b;
+    }
+
+    /**
+     * Fills the next population from parents and children, front by front,
+     * and records the rank and crowding of its members.
+     *
+     * @param combined parents followed by children
+     * @param rank filled with the front of each member of the next population
+     * @param crowding filled with the crowding distance of each member
+     * @return the next population
+     */
+    private Schedule[] select(Schedule[] combined, int[] rank, double[] crowding) {
+        List<List<Integer>> fronts = sortFronts(combined);
+        Schedule[] next = new Schedule[populationSize];
+        int filled = 0;
+        for (int f=0; f<fronts.size() && filled<populationSize; f++) {
+            List<Integer> front = fronts.get(f);
+            double[] distance = crowdingDistance(combined, front);
+            Integer[] order = new Integer[front.size()];
+            for (int i=0; i<order.length; i++) order[i] = i;
+            if (filled + front.size() > populationSize) {
+                // only part of the last front fits, keep its least crowded
+                Arrays.sort(order, (x, y) -> Double.compare(distance[y], distance[x]));
+            }
+            for (int i=0; i<order.length && filled<populationSize; i++) {
+                next[filled] = combined[front.get(order[i])];
+                rank[filled] = f;
+                crowding[filled] = distance[order[i]];
+                filled++;
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Ranks a population and works out crowding, without selecting.
+     */
+    private void rankAndCrowd(Schedule[] population, int[] rank, double[] crowding) {
+        List<List<Integer>> fronts = sortFronts(population);
+        for (int f=0; f<fronts.size(); f++) {
+            List<Integer> front = fronts.get(f);
+            double[] distance = crowdingDistance(population, front);
+            for (int i=0; i<front.size(); i++) {
+                rank[front.get(i)] = f;
+                crowding[front.get(i)] = distance[i];
+            }
+        }
+    }
+
+    /**
+     * Sorts schedules into non-dominated fronts (efficient non-dominated
+     * sort, binary search version).  Schedules are taken in decreasing
+     * lexicographic order of their objectives, so none can be dominated by
+     * one taken after it, and each is placed in the first front with no
+     * member that dominates it.  Being dominated by some member of a front
+     * means being dominated by some member of every earlier front, so that
+     * front is found by binary search.
+     *
+     * @param schedules schedules to sort
+     * @return indexes of the schedules in each front, best front first
+     */
+    static List<List<Integer>> sortFronts(Schedule[] schedules) {
+        int n = schedules.length;
+        double[][] objectives = new double[n][];
+        Integer[] order = new Integer[n];
+        for (int i=0; i<n; i++) {
+            objectives[i] = objectives(schedules[i]);
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> {
+            for (int m=0; m<OBJECTIVES; m++) {
+                int c = Double.compare(objectives[b][m], objectives[a][m]);
+                if (c != 0) return c;
+            }
+            return 0;
+        });
+
+        List<List<Integer>> fronts = new ArrayList<>();
+        for (int i : order) {
+            int lo = 0, hi = fronts.size(); // first front not dominating i
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (isDominated(objectives, i, fronts.get(mid))) lo = mid + 1;
+                else hi = mid;
+            }
+            if (lo == fronts.size()) fronts.add(new ArrayList<>());
+            fronts.get(lo).add(i);
+        }
+        return fronts;
+    }
+
+    /**
+     * @return true if any member of the front dominates schedule i
+     */
+    private static boolean isDominated(double[][] objectives, int i, List<Integer> front) {
+        // the latest members are the closest to i, check them first
+        for (int k=front.size()-1; k>=0; k--) {
+            if (dominates(objectives[front.get(k)], objectives[i])) return true;
+        }
+        return false;
+    }
+
+    /**
+     * @return true if a is at least as good as b on every objective and
+     * better on one
+     */
+    static boolean dominates(double[] a, double[] b) {
+        boolean better = false;
+        for (int m=0; m<OBJECTIVES; m++) {
+            if (a[m] < b[m]) return false;
+            if (a[m] > b[m]) better = true;
+        }
+        return better;
+    }
+
+    private static double[] objectives(Schedule s) {
+        return new double[] {s.availabilityScore(), s.hoursScore(), s.weeksScore()};
+    }
+
+    /**
+     * Crowding distance of each member of a front: the size of the box
+     * around it reaching to its neighbours on each objective.  The ends of
+     * the front on each objective are always kept.
+     *
+     * @param schedules schedules the front indexes into
+     * @param front indexes of the front's members
+     * @return crowding distance of each member, in the front's order
+     */
+    private static double[] crowdingDistance(Schedule[] schedules, List<Integer> front) {
+        int size = front.size();
+        double[] distance = new double[size];
+        if (size <= 2) {
+            Arrays.fill(distance, Double.POSITIVE_INFINITY);
+            return distance;
+        }
+        double[][] objectives = new double[size][];
+        Integer[] order = new Integer[size];
+        for (int i=0; i<size; i++) {
+            objectives[i] = objectives(schedules[front.get(i)]);
+            order[i] = i;
+        }
+        for (int m=0; m<OBJECTIVES; m++) {
+            final int objective = m;
+            Arrays.sort(order, Comparator.comparingDouble(i -> objectives[i][objective]));
+            double min = objectives[order[0]][m];
+            double max = objectives[order[size-1]][m];
+            distance[order[0]] = Double.POSITIVE_INFINITY;
+            distance[order[size-1]] = Double.POSITIVE_INFINITY;
+            if (max == min) continue;
+            for (int i=1; i<size-1; i++) {
+                distance[order[i]] += (objectives[order[i+1]][m] - objectives[order[i-1]][m])
+                        / (max - min);
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * @return the first front of the population, one schedule per trade-off
+     * of the objectives, in order of availability score
+     */
+    private static List<Schedule> front(Schedule[] population, int[] rank) {
+        List<Schedule> first = new ArrayList<>();
+        for (int i=0; i<population.length; i++) {
+            if (rank[i] == 0) first.add(population[i]);
+        }
+        first.sort((a, b) -> {
+            double[] x = objectives(a), y = objectives(b);
+            for (int m=0; m<OBJECTIVES; m++) {
+                int c = Double.compare(y[m], x[m]);
+                if (c != 0) return c;
+            }
+            return 0;
+        });
+        // schedules with the same scores offer the same trade-off, keep one
+        List<Schedule> front = new ArrayList<>();
+        double[] last = null;
+        for (Schedule s : first) {
+            double[] scores = objectives(s);
+            if (last == null || !Arrays.equals(scores, last)) {
+                front.add(new Schedule(s));
+                last = scores;
+            }
+        }
+        return front;
+    }
+
+    /**
+     *
+     * @return number of generations evolved in the last run
+     */
+    public int getGenerations() {
+        return generations;
+    }
+
+    /**
+     *
+     * @return why the last run stopped, or null if there has not been one
+     */
+    public String getStopReason() {
+        return stopReason;
+    }
+}
@@ -1,6 +1,7 @@
 package tutorscheduler;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 
 /**
@@ -20,7 +21,7 @@ public class Population {
      */
     public Population(Data data) {
         population = new ArrayList<>();
-        for (int i=0; i<TutorScheduler.POPULATION_SIZE; i++) {
+        for (int i=0; i<data.config.getPopulationSize(); i++) {
             population.add(new Schedule(data, true));
         }
         findFittest();
@@ -41,10 +42,14 @@ public class Population {
     public Schedule findFittest() {
         Schedule schedule;
         int fitness;
+        // schedules change in place, so start over rather than trust the 
+        // best of an earlier call
+        this.fittest = null;
+        this.fittestScore = 0;
         for (int i=0; i<population.size(); i++) {
             schedule = population.get(i);
             fitness = schedule.getFitness();
-            if (fitness > this.fittestScore) { 
+            if (this.fittest == null || fitness > this.fittestScore) { 
                 this.fittest = schedule;
                 this.fittestScore = fitness;
             }
@@ -58,6 +63,24 @@ public class Population {
      */
     public void addSchedule(Schedule s) {
         population.add(s);
+        if (fittest == null || s.getFitness() > fittestScore) {
+            fittest = s;
+            fittestScore = s.getFitness();
+        }
+    }
+    
+    /**
+     * Replace the schedule at an index.
+     * @param i index of schedule to replace
+     * @param s schedule to put in its place
+     */
+    public void setSchedule(int i, Schedule s) {
+        if (population.set(i, s) == fittest) {
+            findFittest();
+        } else if (s.getFitness() > fittestScore) {
+            fittest = s;
+            fittestScore = s.getFitness();
+        }
     }
     
     /**
@@ -93,6 +116,101 @@ public class Population {
         return fittestScore;
     }
           
+    /**
+     * Mean Hamming distance between two schedules of the population, as a 
+     * share of the slots: 0 when every schedule is the same, 1 when no two 
+     * schedules hold the same session in any slot.  Counted slot by slot 
+     * from how often each session repeats, rather than pair by pair.
+     * 
+     * @return diversity of the population, from 0 to 1
+     */
+    public double diversity() {
+        int n = population.size();
+        if (n < 2) return 0;
+        int slots = population.get(0).size();
+        long pairs = (long) n*(n-1);
+        long[] genes = new long[n];
+        double total = 0;
+        for (int i=0; i<slots; i++) {
+            for (int k=0; k<n; k++) {
+                genes[k] = population.get(k).getGene(i);
+            }
+            Arrays.sort(genes);
+            // ordered pairs of schedules with the same session in the slot
+            long same = 0;
+            int run = 1;
+            for (int k=1; k<=n; k++) {
+                if (k < n && genes[k] == genes[k-1]) {
+                    run++;
+                } else {
+                    same += (long) run*(run-1);
+                    run = 1;
+                }
+            }
+            total += 1 - (double) same/pairs;
+        }
+        return total/slots;
+    }
+    
+    /**
+     * 
+     * @return variance of the schedules' fitness
+     */
+    public double fitnessVariance() {
+        int n = population.size();
+        if (n == 0) return 0;
+        double sum = 0, sumSquares = 0;
+        for (Schedule s : population) {
+            sum += s.getFitness();
+            sumSquares += (double) s.getFitness()*s.getFitness();
+        }
+        double mean = sum/n;
+        return sumSquares/n - mean*mean;
+    }
+          
+    /**
+     * Moves the k fittest schedules to the front of the population, in no 
+     * particular order, and the rest behind them.  Takes expected linear 
+     * time, against n log n for a full sort.
+     * 
+     * @param k number of fittest schedules to move to the front
+     */
+    public void selectTop(int k) {
+        selectTop(k, population.size());
+    }
+    
+    /**
+     * Moves the k fittest of the first n schedules to the front, leaving the
+     * schedules from n on where they are.  A quickselect with a three way 
+     * partition, since fitness takes few values and many schedules tie.
+     * 
+     * @param k number of fittest schedules to move to the front
+     * @param n number of schedules, from the front, to select among
+     */
+    void selectTop(int k, int n) {
+        if (k <= 0 || k >= n) return;
+        int lo = 0, hi = n - 1;
+        while (lo < hi) {
+            // median of three pivot, so sorted input is not a worst case
+            int a = population.get(lo).getFitness();
+            int b = population.get((lo + hi) >>> 1).getFitness();
+            int c = population.get(hi).getFitness();
+            int pivot = Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+            
+            // [lo, lt) fitter than the pivot, [lt, i) equal, (gt, hi] less fit
+            int lt = lo, gt = hi, i = lo;
+            while (i <= gt) {
+                int fitness = population.get(i).getFitness();
+                if (fitness > pivot) Collections.swap(population, lt++, i++);
+                else if (fitness < pivot) Collections.swap(population, i, gt--);
+                else i++;
+            }
+            if (k < lt) hi = lt - 1;
+            else if (k > gt + 1) lo = gt + 1;
+            else return; // the split falls among schedules tied with the pivot
+        }
+    }
+          
     /**
      * Sort schedules by fitness. 
      */
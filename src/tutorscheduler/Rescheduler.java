@@ -0,0 +1,181 @@
+package tutorscheduler;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Repairs an existing schedule after availability changes, instead of
+ * evolving a new one from scratch.  Only the slots affected by the change
+ * may be changed; every other slot keeps its session, so the timetable
+ * people already know stays as it was.  The population starts from copies
+ * of the existing schedule, one unchanged and the rest with the affected
+ * slots redrawn, and the genetic algorithm only mutates and crosses over
+ * the affected slots.
+ *
+ * @author Stephanie Deen
+ */
+public class Rescheduler {
+
+    private final Data data;
+    private final Schedule previous;
+    private final int[] slots; // slots that may change
+    private final Random rand = new Random();
+
+    /**
+     * Constructor for when only the new data is known.  The affected slots
+     * are those whose session has a room, tutor or supervisor who is not
+     * available in the slot.
+     *
+     * @param data the changed data
+     * @param previous the schedule to repair, read against the changed data
+     * (for example with CsvImporter)
+     */
+    public Rescheduler(Data data, Schedule previous) {
+        this(data, previous, new int[0]);
+    }
+
+    /**
+     * Constructor for when only the new data is known, and some sessions
+     * were dropped reading the schedule because they named someone no
+     * longer in the data.  Their slots are affected as well.
+     *
+     * @param data the changed data
+     * @param previous the schedule to repair, read against the changed data
+     * @param dropped slots whose sessions were dropped, see
+     * CsvImporter.getDroppedSlots()
+     */
+    public Rescheduler(Data data, Schedule previous, int[] dropped) {
+        this.data = data;
+        this.previous = previous;
+        boolean[] affected = flag(previous.size(), dropped);
+        for (int i=0; i<previous.size(); i++) {
+            long gene = previous.getGene(i);
+            if (gene != Session.EMPTY && (!data.rooms.get(Session.room(gene)).isAvailable(i)
+                    || !data.tutors.get(Session.tutor(gene)).isAvailable(i)
+                    || !data.supervisors.get(Session.supervisor(gene)).isAvailable(i))) {
+                affected[i] = true;
+            }
+        }
+        this.slots = indexes(affected);
+    }
+
+    /**
+     * Constructor for when the data before the change is also known.  The
+     * affected slots are those whose session has a room, tutor or supervisor
+     * whose availability in the slot changed, or who is new.
+     *
+     * @param data the changed data
+     * @param previous the schedule to repair, read against the changed data
+     * @param before the data the schedule was made with
+     */
+    public Rescheduler(Data data, Schedule previous, Data before) {
+        this(data, previous, before, new int[0]);
+    }
+
+    /**
+     * Constructor for when the data before the change is also known, and
+     * some sessions were dropped reading the schedule because they named
+     * someone no longer in the data.  Their slots are affected as well.
+     *
+     * @param data the changed data
+     * @param previous the schedule to repair, read against the changed data
+     * @param before the data the schedule was made with
+     * @param dropped slots whose sessions were dropped, see
+     * CsvImporter.getDroppedSlots()
+     */
+    public Rescheduler(Data data, Schedule previous, Data before, int[] dropped) {
+        this.data = data;
+        this.previous = previous;
+        Map<String, Component> rooms = byName(before.rooms);
+        Map<String, Component> tutors = byName(before.tutors);
+        Map<String, Component> supervisors = byName(before.supervisors);
+        boolean[] affected = flag(previous.size(), dropped);
+        for (int i=0; i<previous.size(); i++) {
+            long gene = previous.getGene(i);
+            if (gene != Session.EMPTY && (changed(data.rooms.get(Session.room(gene)), rooms, i)
+                    || changed(data.tutors.get(Session.tutor(gene)), tutors, i)
+                    || changed(data.supervisors.get(Session.supervisor(gene)), supervisors, i))) {
+                affected[i] = true;
+            }
+        }
+        this.slots = indexes(affected);
+    }
+
+    /**
+     * @return flags for each slot, set for the given slots that are in the
+     * schedule
+     */
+    private static boolean[] flag(int size, int[] slots) {
+        boolean[] flags = new boolean[size];
+        for (int i : slots) {
+            if (i >= 0 && i < size) flags[i] = true;
+        }
+        return flags;
+    }
+
+    /**
+     * @return indexes of the set flags, in order
+     */
+    private static int[] indexes(boolean[] flags) {
+        int[] indexes = new int[flags.length];
+        int count = 0;
+        for (int i=0; i<flags.length; i++) {
+            if (flags[i]) indexes[count++] = i;
+        }
+        return Arrays.copyOf(indexes, count);
+    }
+
+    private static Map<String, Component> byName(List<Component> components) {
+        Map<String, Component> byName = new HashMap<>();
+        for (Component c : components) {
+            byName.put(c.getName(), c);
+        }
+        return byName;
+    }
+
+    /**
+     * @return true if the component is new or its availability in the slot
+     * is not what it was
+     */
+    private static boolean changed(Component now, Map<String, Component> before, int slot) {
+        Component then = before.get(now.getName());
+        return then == null || then.isAvailable(slot) != now.isAvailable(slot);
+    }
+
+    /**
+     * @return indexes of the slots the repair may change
+     */
+    public int[] getAffectedSlots() {
+        return slots.clone();
+    }
+
+    /**
+     * Repairs the schedule.
+     *
+     * @param termination when to stop evolving
+     * @return the repaired schedule, which differs from the previous one in
+     * the affected slots only
+     */
+    public Schedule run(Termination termination) {
+        if (slots.length == 0) return new Schedule(previous);
+
+        GeneticAlgorithm ga = new GeneticAlgorithm(data);
+        ga.restrictTo(slots);
+        Population population = new Population();
+        population.addSchedule(new Schedule(previous));
+        for (int n=1; n<data.config.getPopulationSize(); n++) {
+            Schedule s = new Schedule(previous);
+            for (int i : slots) {
+                // same share of blank sessions as a new schedule
+                s.setGene(rand.nextDouble() > .2
+                        ? Session.availableGene(data, i, rand) : Session.EMPTY, i);
+            }
+            population.addSchedule(s);
+        }
+        population.findFittest();
+        return ga.run(population, termination, null);
+    }
+}
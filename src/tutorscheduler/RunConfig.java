@@ -0,0 +1,399 @@
+package tutorscheduler;
+
+import java.io.File;
+
+/**
+ * Settings for one scheduling run: where the data comes from, the size of
+ * the week, and how the genetic algorithm evolves.  A RunConfig never
+ * changes once created; each with method returns a changed copy, so runs
+ * with different settings can share a JVM.  The config is handed to Data,
+ * and Population, Schedule and GeneticAlgorithm read it from there.
+ *
+ * @author Stephanie Deen
+ */
+public class RunConfig {
+
+    private String dataPath = "src/Resources/";
+    private String workbook;
+    private int populationSize;
+    private int elites;
+    private int generations;
+    private int hoursADay;
+    private int hoursAWeek;
+    private int daysAWeek;
+    private int weeks;
+    private double mutationRate;
+    private double crossoverRate;
+    private boolean guided;
+    private boolean adaptive;
+    private boolean metricsLog;
+    private int threads;
+    private long timeBudgetMillis;
+    private int targetFitness;
+    private int stallGenerations;
+    private int localSearchTopK;
+    private int localSearchSteps;
+
+    private RunConfig() {
+    }
+
+    /**
+     * The defaults are taken from the settings in TutorScheduler and
+     * GeneticAlgorithm at the time of the call.
+     *
+     * @return config with the default settings
+     */
+    public static RunConfig defaults() {
+        RunConfig c = new RunConfig();
+        c.workbook = TutorScheduler.WORKBOOK;
+        c.populationSize = TutorScheduler.POPULATION_SIZE;
+        c.elites = TutorScheduler.ELITES;
+        c.generations = TutorScheduler.GENERATIONS;
+        c.hoursADay = TutorScheduler.HOURS_A_DAY;
+        c.hoursAWeek = TutorScheduler.HOURS_A_WEEK;
+        c.daysAWeek = TutorScheduler.DAYS_A_WEEK;
+        c.weeks = TutorScheduler.WEEKS;
+        c.mutationRate = GeneticAlgorithm.MUTATION_RATE;
+        c.crossoverRate = GeneticAlgorithm.CROSSOVER_RATE;
+        c.guided = TutorScheduler.GUIDED;
+        c.adaptive = TutorScheduler.ADAPTIVE;
+        c.metricsLog = TutorScheduler.METRICS_LOG;
+        c.threads = TutorScheduler.THREADS;
+        c.timeBudgetMillis = TutorScheduler.TIME_BUDGET_MILLIS;
+        c.targetFitness = TutorScheduler.TARGET_FITNESS;
+        c.stallGenerations = TutorScheduler.STALL_GENERATIONS;
+        c.localSearchTopK = TutorScheduler.LOCAL_SEARCH_TOP_K;
+        c.localSearchSteps = TutorScheduler.LOCAL_SEARCH_STEPS;
+        return c;
+    }
+
+    private RunConfig copy() {
+        RunConfig c = new RunConfig();
+        c.dataPath = dataPath;
+        c.workbook = workbook;
+        c.populationSize = populationSize;
+        c.elites = elites;
+        c.generations = generations;
+        c.hoursADay = hoursADay;
+        c.hoursAWeek = hoursAWeek;
+        c.daysAWeek = daysAWeek;
+        c.weeks = weeks;
+        c.mutationRate = mutationRate;
+        c.crossoverRate = crossoverRate;
+        c.guided = guided;
+        c.adaptive = adaptive;
+        c.metricsLog = metricsLog;
+        c.threads = threads;
+        c.timeBudgetMillis = timeBudgetMillis;
+        c.targetFitness = targetFitness;
+        c.stallGenerations = stallGenerations;
+        c.localSearchTopK = localSearchTopK;
+        c.localSearchSteps = localSearchSteps;
+        return c;
+    }
+
+    /**
+     * @throws IllegalArgumentException if the value is not positive, a week
+     * of no slots leaves nothing to schedule and divides by zero
+     */
+    private static int positive(int value, String name) {
+        if (value <= 0) throw new IllegalArgumentException(name + " must be positive: " + value);
+        return value;
+    }
+
+    /**
+     *
+     * @return number of time slots in a week
+     */
+    public int slotsPerWeek() {
+        return hoursADay*daysAWeek;
+    }
+
+    /**
+     *
+     * @return number of time slots in a schedule, over every week of the run
+     */
+    public int slots() {
+        return hoursADay*daysAWeek*weeks;
+    }
+
+    /**
+     *
+     * @return when a run with this config stops evolving
+     * @throws IllegalArgumentException if no generation, time, fitness or
+     * stall limit is set
+     */
+    public Termination termination() {
+        return new Termination(generations, timeBudgetMillis, targetFitness,
+                stallGenerations);
+    }
+
+    /**
+     * @return directory holding the data files, ending in a separator
+     */
+    public String getDataPath() {
+        return dataPath;
+    }
+
+    /**
+     * @return .xlsx file read after the text files, or null for none
+     */
+    public String getWorkbook() {
+        return workbook;
+    }
+
+    public int getPopulationSize() {
+        return populationSize;
+    }
+
+    /**
+     * @return fittest schedules carried into the next generation unchanged
+     */
+    public int getElites() {
+        return elites;
+    }
+
+    public int getGenerations() {
+        return generations;
+    }
+
+    public int getHoursADay() {
+        return hoursADay;
+    }
+
+    /**
+     * @return most sessions that may be scheduled in a week
+     */
+    public int getHoursAWeek() {
+        return hoursAWeek;
+    }
+
+    public int getDaysAWeek() {
+        return daysAWeek;
+    }
+
+    /**
+     * @return number of weeks a schedule covers
+     */
+    public int getWeeks() {
+        return weeks;
+    }
+
+    public double getMutationRate() {
+        return mutationRate;
+    }
+
+    public double getCrossoverRate() {
+        return crossoverRate;
+    }
+
+    /**
+     * @return true if sessions are drawn from who is available in each slot
+     */
+    public boolean isGuided() {
+        return guided;
+    }
+
+    /**
+     * @return true if the mutation rate adapts to the population's 
+     * diversity, starting from the configured rate
+     */
+    public boolean isAdaptive() {
+        return adaptive;
+    }
+
+    /**
+     * @return true if each generation's metrics are logged, see Metrics
+     */
+    public boolean isMetricsLog() {
+        return metricsLog;
+    }
+
+    /**
+     * @return threads a single run evolves children on, 1 for none
+     */
+    public int getThreads() {
+        return threads;
+    }
+
+    public long getTimeBudgetMillis() {
+        return timeBudgetMillis;
+    }
+
+    public int getTargetFitness() {
+        return targetFitness;
+    }
+
+    public int getStallGenerations() {
+        return stallGenerations;
+    }
+
+    /**
+     * @return fittest children refined by local search each generation, 0 
+     * for none
+     */
+    public int getLocalSearchTopK() {
+        return localSearchTopK;
+    }
+
+    /**
+     * @return slots local search visits in each refined child
+     */
+    public int getLocalSearchSteps() {
+        return localSearchSteps;
+    }
+
+    /**
+     * @param dataPath directory holding the data files
+     * @return copy of this config reading data from the directory
+     */
+    public RunConfig withDataPath(String dataPath) {
+        RunConfig c = copy();
+        c.dataPath = dataPath.endsWith("/") || dataPath.endsWith(File.separator)
+                ? dataPath : dataPath + File.separator;
+        return c;
+    }
+
+    /**
+     * @param workbook .xlsx file of availability, or null for none
+     * @return copy of this config also reading the workbook
+     */
+    public RunConfig withWorkbook(String workbook) {
+        RunConfig c = copy();
+        c.workbook = workbook;
+        return c;
+    }
+
+    public RunConfig withPopulationSize(int populationSize) {
+        RunConfig c = copy();
+        c.populationSize = populationSize;
+        return c;
+    }
+
+    public RunConfig withElites(int elites) {
+        RunConfig c = copy();
+        c.elites = elites;
+        return c;
+    }
+
+    public RunConfig withGenerations(int generations) {
+        RunConfig c = copy();
+        c.generations = generations;
+        return c;
+    }
+
+    public RunConfig withHoursADay(int hoursADay) {
+        RunConfig c = copy();
+        c.hoursADay = positive(hoursADay, "hoursADay");
+        return c;
+    }
+
+    public RunConfig withHoursAWeek(int hoursAWeek) {
+        RunConfig c = copy();
+        c.hoursAWeek = hoursAWeek;
+        return c;
+    }
+
+    public RunConfig withDaysAWeek(int daysAWeek) {
+        RunConfig c = copy();
+        c.daysAWeek = positive(daysAWeek, "daysAWeek");
+        return c;
+    }
+
+    public RunConfig withWeeks(int weeks) {
+        RunConfig c = copy();
+        c.weeks = positive(weeks, "weeks");
+        return c;
+    }
+
+    public RunConfig withMutationRate(double mutationRate) {
+        RunConfig c = copy();
+        c.mutationRate = mutationRate;
+        return c;
+    }
+
+    public RunConfig withCrossoverRate(double crossoverRate) {
+        RunConfig c = copy();
+        c.crossoverRate = crossoverRate;
+        return c;
+    }
+
+    public RunConfig withGuided(boolean guided) {
+        RunConfig c = copy();
+        c.guided = guided;
+        return c;
+    }
+
+    public RunConfig withAdaptive(boolean adaptive) {
+        RunConfig c = copy();
+        c.adaptive = adaptive;
+        return c;
+    }
+
+    public RunConfig withMetricsLog(boolean metricsLog) {
+        RunConfig c = copy();
+        c.metricsLog = metricsLog;
+        return c;
+    }
+
+    public RunConfig withThreads(int threads) {
+        RunConfig c = copy();
+        c.threads = threads;
+        return c;
+    }
+
+    public RunConfig withTimeBudgetMillis(long timeBudgetMillis) {
+        RunConfig c = copy();
+        c.timeBudgetMillis = timeBudgetMillis;
+        return c;
+    }
+
+    public RunConfig withTargetFitness(int targetFitness) {
+        RunConfig c = copy();
+        c.targetFitness = targetFitness;
+        return c;
+    }
+
+    public RunConfig withStallGenerations(int stallGenerations) {
+        RunConfig c = copy();
+        c.stallGenerations = stallGenerations;
+        return c;
+    }
+
+    public RunConfig withLocalSearchTopK(int localSearchTopK) {
+        RunConfig c = copy();
+        c.localSearchTopK = localSearchTopK;
+        return c;
+    }
+
+    public RunConfig withLocalSearchSteps(int localSearchSteps) {
+        RunConfig c = copy();
+        c.localSearchSteps = localSearchSteps;
+        return c;
+    }
+
+    @Override
+    public String toString() {
+        return "RunConfig{" +
+                "dataPath= " + dataPath +
+                ", workbook= " + workbook +
+                ", populationSize= " + populationSize +
+                ", elites= " + elites +
+                ", generations= " + generations +
+                ", hoursADay= " + hoursADay +
+                ", hoursAWeek= " + hoursAWeek +
+                ", daysAWeek= " + daysAWeek +
+                ", weeks= " + weeks +
+                ", mutationRate= " + mutationRate +
+                ", crossoverRate= " + crossoverRate +
+                ", guided= " + guided +
+                ", adaptive= " + adaptive +
+                ", metricsLog= " + metricsLog +
+                ", threads= " + threads +
+                ", timeBudgetMillis= " + timeBudgetMillis +
+                ", targetFitness= " + targetFitness +
+                ", stallGenerations= " + stallGenerations +
+                ", localSearchTopK= " + localSearchTopK +
+                ", localSearchSteps= " + localSearchSteps + '}';
+    }
+}
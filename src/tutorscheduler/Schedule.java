@@ -1,29 +1,52 @@
 package tutorscheduler;
 
-import java.util.HashMap;
-import java.util.Iterator;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Represents a single schedule (a chromosome) as an ArrayList.  Each cell
- * is a time slot ranging from the first day of the week at the first time 
- * to the last day of the week at the last time.
+ * Represents a single schedule (a chromosome) as an array of genes.  Each cell
+ * is a time slot ranging from the first day of the first week at the first 
+ * time to the last day of the last week at the last time, and holds the session in that
+ * slot packed into a long (see Session.encode).  Sessions are only created as
+ * views when a slot is read.
  * 
  * @author Stephanie Deen
  */
 public class Schedule implements Comparable<Schedule> {
     
-    private final Session[] schedule;
+    private long[] genes;
     private int fitness;
-    private final int size = TutorScheduler.HOURS_A_DAY*TutorScheduler.DAYS_A_WEEK;
+    private final int size;
+    private final int weeks;
+    private final int slotsPerWeek;
     private final Data data;
-    private final HashMap<Component, MutableInt> people = new HashMap<>(); // used for storing hours on schedule
+    private final RunConfig config;
+    
+    // running totals kept up to date by setGene, so fitness never needs a
+    // full pass over the slots
+    private byte[] matches; // availability matches (0-3) of each slot
+    private int[] supervisorHours; // hours on schedule, by component id then week
+    private int[] tutorHours;
+    private int[] weekSessions; // number of non null sessions in each week
+    private int match; // availability matches over all slots
+    private int sessions; // number of non null sessions
+    private int weeksOver; // weeks with more sessions than allowed
+    private int goodHours; // people and weeks with more than 0 and under max hours
+    private long hash; // hash of the genes, kept up to date by setGene
+    
+    // true while the arrays above may be shared with a copy; they are cloned
+    // before the first change, so identical copies cost no array copying
+    private boolean shared;
 
     /**
      * Constructor
      * Creates a schedule by filling the slots with random or blank sessions, 
-     * taking into account the maximum hours that can be scheduled for the week.  
-     * Also initializes map used to store tutors and supervisors hours worked
-     * per schedule and calculates the fitness. 
+     * taking into account the maximum hours that can be scheduled each week.  
+     * Also allocates the counters used to track tutors and supervisors hours 
+     * worked per schedule and calculates the fitness. 
      * 
      * @param data 
      * @param onStartup true if this is the first round of schedules for the 
@@ -32,131 +55,211 @@ public class Schedule implements Comparable<Schedule> {
      */
     public Schedule(Data data, boolean onStartup) {
         this.data = data;
-        schedule = new Session[TutorScheduler.HOURS_A_DAY*TutorScheduler.DAYS_A_WEEK]; 
+        this.config = data.config;
+        size = config.slots();
+        weeks = config.getWeeks();
+        slotsPerWeek = config.slotsPerWeek();
+        genes = new long[size]; // all EMPTY
+        matches = new byte[genes.length];
+        weekSessions = new int[weeks];
+        
+        // one counter per tutor and supervisor per week
+        supervisorHours = new int[data.supervisors.size()*weeks];
+        tutorHours = new int[data.tutors.size()*weeks];
         
         // if first population, assign a randomly generated session, or a blank session
         if (onStartup) {
             int count = 0; // used for keeping track of how many blank sessions to make
 
-            for (int i=0; i<schedule.length; i++) {
+            Random rand = ThreadLocalRandom.current();
+            for (int i=0; i<genes.length; i++) {
+                if (i % slotsPerWeek == 0) count = 0; // new week
                 // decide whether to add dummy session or real session
-                if (Math.random() > .2 && count < TutorScheduler.HOURS_A_WEEK) {
-                    schedule[i] = new Session(data);
+                if (rand.nextDouble() > .2 && count < config.getHoursAWeek()) {
+                    setGene(config.isGuided() 
+                            ? Session.availableGene(data, i, rand)
+                            : Session.randomGene(data, rand), i);
                     count++;
-                } else {
-                    schedule[i] = new Session(null, null, null);
                 }
             }
         }
-        
-        // initialize map by iterating over tutor and supervisor list
-        Iterator<Component> supers = data.supervisors.iterator();
-        Iterator<Component> tutors = data.tutors.iterator();
-        while (supers.hasNext()) 
-            people.put(supers.next(), new MutableInt());
-        while (tutors.hasNext()) 
-            people.put(tutors.next(), new MutableInt());
-        
-        if (onStartup) calcFitness();
+    }
+         
+    /**
+     * Copy constructor.  The copy can be mutated independently of the 
+     * original.  The two share their slots and hour counters until either
+     * one changes, so a copy that is never changed costs no array copying.
+     * 
+     * @param other schedule to copy
+     */
+    public Schedule(Schedule other) {
+        this.data = other.data;
+        this.config = other.config;
+        this.size = other.size;
+        this.weeks = other.weeks;
+        this.slotsPerWeek = other.slotsPerWeek;
+        this.genes = other.genes;
+        this.fitness = other.fitness;
+        this.matches = other.matches;
+        this.supervisorHours = other.supervisorHours;
+        this.tutorHours = other.tutorHours;
+        this.weekSessions = other.weekSessions;
+        this.match = other.match;
+        this.sessions = other.sessions;
+        this.weeksOver = other.weeksOver;
+        this.goodHours = other.goodHours;
+        this.hash = other.hash;
+        this.shared = true;
+        other.shared = true;
+    }
+    
+    /**
+     * Gives this schedule its own copy of any arrays it shares with a copy.
+     */
+    private void unshare() {
+        genes = genes.clone();
+        matches = matches.clone();
+        supervisorHours = supervisorHours.clone();
+        tutorHours = tutorHours.clone();
+        weekSessions = weekSessions.clone();
+        shared = false;
     }
          
     /**
      * Calculates the fitness of the schedule by calculating the percentage
      * of matches in availability and whether people are over their max hours. 
+     * The totals behind the score are kept current by setGene, so this 
+     * takes constant time no matter how many slots or people there are.
      */
     public void calcFitness() {
-        
-        Session session;
-        Component tutor;
-        Component supervisor;
-        String name;
-        String availability;
-        int match = 0;  // keep track of how many matches there are in the schedule
-        int sessions = 0; // keep track of how many non null sessions there are
-        
-        for (int i=0; i<schedule.length; i++) {
-           session = schedule[i];
-            if (session.getRoom() != null) { // if the session isn't dummy/null
-                sessions++; 
-                
-                // update total hours in the hashmap
-                // tutors
-                tutor = session.getTutor();
-                people.get(tutor).increment();
-                // supervisors                
-                supervisor = session.getSupervisor();
-                people.get(supervisor).increment();
-                
-                
-                // compare availability to schedule
-                
-                // tutor
-                name = tutor.getName();                
-                availability = data.tutorAvailability[i];
-                if (availability != null && availability.contains(name))                     
-                    match++;  // tutor found in avail, count success
-                
-                // supervisor
-                name = supervisor.getName();                
-                availability = data.supervisorAvailability[i];
-                if (availability != null && availability.contains(name))                     
-                    match++;  // supervisor found in avail, count success
-                
-                // room
-                name = session.getRoom().getName();                
-                availability = data.roomAvailability[i];
-                if (availability != null && availability.contains(name))                     
-                    match++;  // room found in avail, count success
-            }
-        }
-        
-        int score = ((100*match)/(sessions*3)); // score for availability matches
-        int maxHoursScore = 100;
-        if (sessions > TutorScheduler.HOURS_A_WEEK) 
-            maxHoursScore = 0; // change maxHours if schedule goes over max hours allowed
+        long start = Metrics.FITNESS.begin();
+        int score = sessions == 0 ? 0 : ((100*match)/(sessions*3)); // score for availability matches
+        // share of weeks that stay within the max hours allowed
+        int maxHoursScore = (100*(weeks - weeksOver))/weeks;
         int hours = calcHours(); // check if people are over their max hours
         fitness = (score + hours + maxHoursScore)/3;
+        Metrics.FITNESS.end(start);
+    }
+    
+    /**
+     * The fitness without rounding, so a change too small to move the whole
+     * number fitness still shows.  The mean of the three objectives below.
+     * Used by local search to compare a schedule with its neighbours.
+     * 
+     * @return fitness as a fraction
+     */
+    double exactFitness() {
+        return (availabilityScore() + hoursScore() + weeksScore())/3;
+    }
+    
+    /**
+     * 
+     * @return share of sessions' rooms, tutors and supervisors that are 
+     * available in their slot, from 0 to 100
+     */
+    public double availabilityScore() {
+        return sessions == 0 ? 0 : (100.0*match)/(sessions*3);
+    }
+    
+    /**
+     * 
+     * @return share of people and weeks with more than 0 and under max hours,
+     * from 0 to 100
+     */
+    public double hoursScore() {
+        return (100.0*goodHours)/(supervisorHours.length+tutorHours.length);
+    }
+    
+    /**
+     * 
+     * @return share of weeks with no more sessions than allowed, from 0 to 100
+     */
+    public double weeksScore() {
+        return (100.0*(weeks - weeksOver))/weeks;
     }
     
     /**
      * Compares the number of hours on the schedule to each persons (tutor and
-     * supervisor) max hours allowed to work. 
+     * supervisor) max hours allowed to work, week by week. 
      * 
      * @return score that is used to calculate overall fitness
      */
     private int calcHours() {
-        Component supervisor;
-        Component tutor;
-        int score = 0;
-        int hours;
-        int maxHours;
-                
-        // Iterate through supervisor and tutor list and check if hours on 
-        // schedule is greater than max hours, if so, subtract from score
-        
-        // supervisors
-        Iterator<Component> supers = data.supervisors.iterator();
-        while (supers.hasNext()) {
-           supervisor = supers.next();
-           maxHours = supervisor.getMaxHours();
-           hours = people.get(supervisor).getHours();
-           if (hours > 0 && hours < maxHours) 
-               score++; // hours are good, add to score
-        }
+        // divide total number of people with good hours by total number of 
+        // people, over all weeks
+        return ((100*goodHours)/(supervisorHours.length+tutorHours.length));
+    }
+    
+    /**
+     * Adds a session's availability matches and hours to the running totals.
+     * 
+     * @param gene non empty gene
+     * @param i index of the slot it occupies
+     */
+    private void addGene(long gene, int i) {
+        Component tutor = data.tutors.get(Session.tutor(gene));
+        Component supervisor = data.supervisors.get(Session.supervisor(gene));
         
-        // tutors
-        Iterator<Component> tutors = data.tutors.iterator();
-        while (tutors.hasNext()) {
-           tutor = tutors.next();
-           maxHours = tutor.getMaxHours();
-           hours = people.get(tutor).getHours(); 
-           if (hours > 0 && hours < maxHours) 
-               score++; // hours are good, add to score
-        }
+        // compare availability to schedule
+        int m = 0;
+        if (tutor.isAvailable(i)) 
+            m++;  // tutor available, count success
+        if (supervisor.isAvailable(i)) 
+            m++;  // supervisor available, count success
+        if (data.rooms.get(Session.room(gene)).isAvailable(i)) 
+            m++;  // room available, count success
         
-        // divide total number of matches of good hours and divide by total
-        // number of people
-        return ((100*score)/(data.supervisors.size()+data.tutors.size()));
+        matches[i] = (byte) m;
+        match += m;
+        sessions++;
+        int week = i / slotsPerWeek;
+        if (++weekSessions[week] == config.getHoursAWeek() + 1) weeksOver++;
+        addHours(tutorHours, tutor, week, 1);
+        addHours(supervisorHours, supervisor, week, 1);
+    }
+    
+    /**
+     * Removes a session's availability matches and hours from the running 
+     * totals.
+     * 
+     * @param gene non empty gene
+     * @param i index of the slot it occupied
+     */
+    private void removeGene(long gene, int i) {
+        match -= matches[i];
+        matches[i] = 0;
+        sessions--;
+        int week = i / slotsPerWeek;
+        if (weekSessions[week]-- == config.getHoursAWeek() + 1) weeksOver--;
+        addHours(tutorHours, data.tutors.get(Session.tutor(gene)), week, -1);
+        addHours(supervisorHours, data.supervisors.get(Session.supervisor(gene)), week, -1);
+    }
+    
+    /**
+     * Changes a person's hours in a week and updates the count of people 
+     * whose hours are more than 0 and under their max hours.
+     * 
+     * @param hours counters for the person's role
+     * @param person tutor or supervisor
+     * @param week index of the week
+     * @param delta change in hours
+     */
+    private void addHours(int[] hours, Component person, int week, int delta) {
+        int maxHours = person.getMaxHours();
+        int index = person.getId()*weeks + week;
+        int before = hours[index];
+        int after = before + delta;
+        hours[index] = after;
+        if (before > 0 && before < maxHours) goodHours--;
+        if (after > 0 && after < maxHours) goodHours++;
+    }
+    
+    /**
+     * 
+     * @return settings of the run the schedule belongs to
+     */
+    public RunConfig getConfig() {
+        return config;
     }
     
     public int getFitness() {
@@ -174,26 +277,84 @@ public class Schedule implements Comparable<Schedule> {
     /**
      * 
      * @param i index of session to return
-     * @return session
+     * @return view of the session in the slot
      */
     public Session getSession(int i) {
-        return schedule[i];
+        return new Session(data, genes[i]);
     }
     
     /**
+     * Puts a session in a slot.  The session is copied into the schedule, so 
+     * later changes to it do not affect the schedule.
      * 
      * @param s session to add to schedule
      * @param i index to add session at
      */
     public void setSession(Session s, int i) {
-        schedule[i] = s;
+        setGene(Session.encode(s), i);
+    }
+    
+    /**
+     * 
+     * @param i index of the slot
+     * @return packed session in the slot, Session.EMPTY if it is a dummy
+     */
+    public long getGene(int i) {
+        return genes[i];
+    }
+    
+    /**
+     * Puts a packed session in a slot and updates the fitness from the change
+     * to that one slot.
+     * 
+     * @param gene packed session, or Session.EMPTY for a dummy session
+     * @param i index of the slot
+     */
+    public void setGene(long gene, int i) {
+        long old = genes[i];
+        if (old == gene) return;
+        if (shared) unshare();
+        hash ^= slotHash(old, i) ^ slotHash(gene, i);
+        if (old != Session.EMPTY) removeGene(old, i);
+        genes[i] = gene;
+        if (gene != Session.EMPTY) addGene(gene, i);
+        calcFitness();
+    }
+    
+    /**
+     * A hash of the slots' genes, updated in constant time on every change.
+     * Schedules with the same genes always have the same hash.
+     * 
+     * @return hash of the schedule's genes
+     */
+    public long hash() {
+        return hash;
+    }
+    
+    /**
+     * 
+     * @param gene gene in a slot
+     * @param i index of the slot
+     * @return the slot's share of the schedule hash, 0 for an empty slot
+     */
+    private static long slotHash(long gene, int i) {
+        if (gene == Session.EMPTY) return 0;
+        // SplitMix64 finalizer
+        long z = gene * 0x9E3779B97F4A7C15L + i;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
     }
 
     /**
-     * @return array of sessions for schedule
+     * @return array of session views for schedule
      */
-    public Session[] getSchedule() {      
-        return schedule;
+    public Session[] getSchedule() {
+        Session[] sessions = new Session[genes.length];
+        for (int i=0; i<genes.length; i++) {
+            sessions[i] = getSession(i);
+        }
+        return sessions;
     }
     
     /**
@@ -214,26 +375,35 @@ public class Schedule implements Comparable<Schedule> {
      */
     @Override
     public String toString() {
-        String statement = "";
-        //String[] days = {"M", "T", "W", "Th", "F", ""};
-        String[] times = {"8-9","9-10","10-11","11-12","12-1","1-2","2-3","3-4","4-5"};
+        StringBuilder statement = new StringBuilder();
         
-        statement += "\t| \t\t M            | \t\t T               | \t\t W            |\n";
-        
-        // print rows
-        for (int i=0; i<times.length; i++) {
-            statement += times[i] + "\t";
+        // a table for each week, as wide as the header's days
+        for (int week=0; week<config.getWeeks(); week++) {
+            int first = week*config.slotsPerWeek();
+            if (config.getWeeks() > 1) 
+                statement.append("Week ").append(week + 1).append('\n');
+            statement.append('\t');
+            for (int day=0; day<config.getDaysAWeek(); day++) {
+                statement.append("| \t\t ").append(ScheduleExporter.day(config, first + day*config.getHoursADay())).append("\t\t");
+            }
+            statement.append("|\n");
             
-            for (int k=0; k<30; k=k+10) {
-                if (schedule[k+i].printSession() == null) 
-                    statement += "|\t\t\t      ";
-                else
-                    statement += "| " + schedule[k+i].printSession() + " ";
+            // print rows
+            for (int i=0; i<config.getHoursADay(); i++) {
+                statement.append(ScheduleExporter.time(config, i)).append('\t');
+                
+                for (int day=0; day<config.getDaysAWeek(); day++) {
+                    String session = getSession(first + day*config.getHoursADay() + i).printSession();
+                    if (session == null) 
+                        statement.append("|\t\t\t      ");
+                    else
+                        statement.append("| ").append(session).append(' ');
+                }
+                statement.append('\n');
             }
-            statement += "\n";
         }
         
-        return statement;
+        return statement.toString();
     }
     
     /**
@@ -241,42 +411,12 @@ public class Schedule implements Comparable<Schedule> {
      * @return string containing the full HTML document
      */
     public String convertToHTML() {
-        String html = "<html><head><link rel=\"stylesheet\" href=\"style.css\"><title>Tutor Schedule</title></head><body>";
-        String[] times = {"8-9","9-10","10-11","11-12","12-1","1-2","2-3","3-4","4-5","5-6"};
-        String[] days = {"M", "T", "W", "Th", "F"};
-        
-        html += "<table><thead><th></th>";
-        for (int i=0; i<TutorScheduler.DAYS_A_WEEK; i++) {
-            html += "<th>" + days[i] + "</th>";
+        StringWriter html = new StringWriter();
+        try {
+            new HtmlExporter().export(this, html);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex); // StringWriter does not throw
         }
-        html += "</thead><tbody>";
-        
-        for (int i=0; i<times.length; i++) {
-            html += "<tr>";
-            html += "<td class='times'>" + times[i] + "</td>";
-            
-            for (int k=0; k<50; k=k+10) {
-                if (schedule[k+i].printSession() == null) 
-                    html += "<td></td>";
-                else
-                    html += "<td>" + schedule[k+i].printSession() + "</td>";
-            }
-            html += "</tr>";
-        }
-        
-        html += "</tbody></table>";
-        
-        return html += "</body></html>";
-    }
-    
-    /**
-     * Private class made to hold and increment number of hours for each person 
-     * on the schedule.
-     */
-    class MutableInt {
-        int value = 0; 
-        public void increment () { ++value; }
-        public int  getHours ()  { return value; }
+        return html.toString();
     }
 }
-
@@ -0,0 +1,82 @@
+package tutorscheduler;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes a schedule out in some format.  Output is streamed straight to the
+ * writer, one slot at a time, and the layout follows the hours a day, days
+ * a week and weeks of the schedule's RunConfig.
+ * 
+ * @author Stephanie Deen
+ */
+public interface ScheduleExporter {
+    
+    /** First hour of the day, on a 24 hour clock. */
+    int FIRST_HOUR = 8;
+    
+    /**
+     * Writes a schedule.  The writer is flushed but not closed.
+     * 
+     * @param schedule schedule to write
+     * @param out writer to write to
+     * @throws IOException if writing fails
+     */
+    void export(Schedule schedule, Writer out) throws IOException;
+    
+    /**
+     * Writes a schedule as UTF-8.  The stream is flushed but not closed.
+     * 
+     * @param schedule schedule to write
+     * @param out stream to write to
+     * @throws IOException if writing fails
+     */
+    default void export(Schedule schedule, OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        export(schedule, writer);
+        writer.flush();
+    }
+    
+    /**
+     * Picks an exporter from a format name or file extension.
+     * 
+     * @param format "html", "csv" or "json", in any case
+     * @return exporter for the format
+     * @throws IllegalArgumentException if the format is unknown
+     */
+    static ScheduleExporter forFormat(String format) {
+        switch (format.toLowerCase()) {
+            case "html": case "htm": return new HtmlExporter();
+            case "csv": return new CsvExporter();
+            case "json": return new JsonExporter();
+            default: throw new IllegalArgumentException("Unknown format: " + format);
+        }
+    }
+    
+    /**
+     * 
+     * @param config settings giving the size of the week
+     * @param slot index of a slot
+     * @return the day the slot falls on, such as "M" or "Th"
+     */
+    static String day(RunConfig config, int slot) {
+        String[] days = {"M", "T", "W", "Th", "F", "Sa", "Su"};
+        int day = (slot / config.getHoursADay()) % config.getDaysAWeek();
+        return day < days.length ? days[day] : "Day " + (day + 1);
+    }
+    
+    /**
+     * 
+     * @param config settings giving the size of the week
+     * @param slot index of a slot
+     * @return the hour the slot covers on a 12 hour clock, such as "12-1"
+     */
+    static String time(RunConfig config, int slot) {
+        int hour = FIRST_HOUR + slot % config.getHoursADay();
+        return ((hour + 11) % 12 + 1) + "-" + ((hour + 12) % 12 + 1);
+    }
+}
@@ -0,0 +1,556 @@
+package tutorscheduler;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Serves scheduling over HTTP from one long running JVM, so departments can
+ * share a warm scheduler instead of each starting their own.  Uses the JDK's
+ * built-in server and listens on localhost only.
+ *
+ * <pre>
+ * POST   /jobs?data=dir          queue a run on a data directory
+ * POST   /jobs                   queue a run on data in the body
+ * GET    /jobs                   list every job
+ * GET    /jobs/{id}              progress of a job
+ * GET    /jobs/{id}/result       fittest schedule (?format=html, csv or json)
+ * DELETE /jobs/{id}              cancel a job, or forget a finished one
+ * </pre>
+ *
+ * Inline data is the three data files one after another, each under a line
+ * reading [supervisors], [tutors] or [rooms].  A POST may also set
+ * generations, population, millis (time budget), target, stall, weeks, hours
+ * (a day), days (a week), mutation and crossover (rates) as query
+ * parameters; anything not given takes the defaults.  A job with no
+ * generation, time, fitness or stall limit, a size that is not positive or a
+ * rate outside 0 to 1 is refused before it is queued.
+ *
+ * Every job runs on its own virtual thread when the JVM has them (Java 21
+ * and later) and on a bounded pool of platform threads when it does not.
+ * Either way, at most maxRunning jobs evolve at a time and the rest wait in
+ * order of arrival.  Finished jobs are forgotten RETAIN_MINUTES after they
+ * finish, or sooner once more than MAX_FINISHED have finished.
+ *
+ * @author Stephanie Deen
+ */
+public class ScheduleService {
+
+    private static final Logger LOG = Logger.getLogger(ScheduleService.class.getName());
+    private static final String[] SECTIONS = {"supervisors", "tutors", "rooms"};
+    private static final String[] FILES = {"SupervisorData.txt", "TutorData.txt", "RoomData.txt"};
+    static final long RETAIN_MINUTES = 60; // how long finished jobs are kept
+    static final int MAX_FINISHED = 100; // most finished jobs kept
+
+    /** State of a job. */
+    public enum State { QUEUED, RUNNING, DONE, FAILED, CANCELLED }
+
+    private final HttpServer server;
+    private final ExecutorService jobs;
+    private final ExecutorService requests;
+    private final Semaphore running;
+    private final Semaphore queueSlots; // one permit per job that may wait
+    private final AtomicInteger nextId = new AtomicInteger(1);
+    private final Map<Integer, Job> byId = new ConcurrentSkipListMap<>();
+
+    /**
+     * Constructor.  The service does not listen until started.
+     *
+     * @param port port to listen on, or 0 for any free port
+     * @param maxRunning most jobs to evolve at the same time
+     * @param maxQueued most jobs to hold waiting before refusing new ones
+     * @throws IOException if the port cannot be bound
+     */
+    public ScheduleService(int port, int maxRunning, int maxQueued) throws IOException {
+        this.running = new Semaphore(maxRunning, true);
+        this.queueSlots = new Semaphore(maxQueued);
+        this.jobs = newExecutor(maxRunning);
+        this.requests = newExecutor(4);
+        this.server = HttpServer.create(new InetSocketAddress("localhost", port), 0);
+        server.createContext("/jobs", this::handle);
+        server.setExecutor(requests);
+    }
+
+    /**
+     * An executor that starts a virtual thread per task, looked up by
+     * reflection so the code still builds and runs on Java 8.
+     *
+     * @param fallbackThreads threads of the pool used when there are no
+     * virtual threads
+     * @return the executor
+     */
+    static ExecutorService newExecutor(int fallbackThreads) {
+        try {
+            return (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException ex) {
+            return Executors.newFixedThreadPool(fallbackThreads, r -> {
+                Thread t = new Thread(r);
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Starts listening.
+     */
+    public void start() {
+        server.start();
+        LOG.log(Level.INFO, "Listening on {0}", server.getAddress());
+    }
+
+    /**
+     * Stops listening and abandons queued and running jobs.
+     */
+    public void stop() {
+        server.stop(0);
+        jobs.shutdownNow();
+        requests.shutdownNow();
+    }
+
+    /**
+     * @return port the service listens on
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            evictFinished();
+            String[] path = exchange.getRequestURI().getPath().split("/");
+            String method = exchange.getRequestMethod();
+            Map<String, String> query = parseQuery(exchange.getRequestURI().getRawQuery());
+            // path is "", "jobs", then an id and "result" if given
+            if (path.length == 2 && method.equals("POST")) {
+                submit(exchange, query);
+            } else if (path.length == 2 && method.equals("GET")) {
+                list(exchange);
+            } else if (path.length == 3 || path.length == 4) {
+                Job job = byId.get(parseId(path[2]));
+                if (job == null) {
+                    send(exchange, 404, "text/plain", "No job " + path[2]);
+                } else if (path.length == 4 && path[3].equals("result") && method.equals("GET")) {
+                    result(exchange, job, query.getOrDefault("format", "json"));
+                } else if (path.length == 3 && method.equals("GET")) {
+                    send(exchange, 200, "application/json", job.toJson());
+                } else if (path.length == 3 && method.equals("DELETE")) {
+                    delete(exchange, job);
+                } else {
+                    send(exchange, 405, "text/plain", "Method not allowed");
+                }
+            } else {
+                send(exchange, 404, "text/plain", "Not found");
+            }
+        } catch (IllegalArgumentException ex) {
+            send(exchange, 400, "text/plain", ex.getMessage());
+        } catch (RuntimeException ex) {
+            LOG.log(Level.SEVERE, null, ex);
+            send(exchange, 500, "text/plain", String.valueOf(ex));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * Queues a job, answering with its id and a link to its progress.
+     */
+    private void submit(HttpExchange exchange, Map<String, String> query) throws IOException {
+        // reserve the job's place in the queue before accepting it
+        if (!queueSlots.tryAcquire()) {
+            send(exchange, 503, "text/plain", "Queue is full, try again later");
+            return;
+        }
+        Job job;
+        try {
+            RunConfig config = configure(query);
+            Path inline = null;
+            String dir = query.get("data");
+            if (dir == null) {
+                inline = writeInline(exchange);
+                dir = inline.toString();
+            } else {
+                for (String file : FILES) {
+                    if (!new File(dir, file).isFile()) {
+                        throw new IllegalArgumentException("No " + file + " in " + dir);
+                    }
+                }
+            }
+            job = new Job(nextId.getAndIncrement(), config.withDataPath(dir), inline);
+        } catch (IOException | RuntimeException ex) {
+            queueSlots.release();
+            throw ex;
+        }
+        byId.put(job.id, job);
+        jobs.execute(() -> runJob(job));
+        exchange.getResponseHeaders().set("Location", "/jobs/" + job.id);
+        send(exchange, 202, "application/json", job.toJson());
+    }
+
+    /**
+     * Applies the run settings given as query parameters to the defaults.
+     */
+    private static RunConfig configure(Map<String, String> query) {
+        RunConfig config = RunConfig.defaults();
+        try {
+            if (query.containsKey("generations"))
+                config = config.withGenerations(Integer.parseInt(query.get("generations")));
+            if (query.containsKey("population"))
+                config = config.withPopulationSize(Integer.parseInt(query.get("population")));
+            if (query.containsKey("millis"))
+                config = config.withTimeBudgetMillis(Long.parseLong(query.get("millis")));
+            if (query.containsKey("target"))
+                config = config.withTargetFitness(Integer.parseInt(query.get("target")));
+            if (query.containsKey("stall"))
+                config = config.withStallGenerations(Integer.parseInt(query.get("stall")));
+            // sizes below 1 are refused by RunConfig
+            if (query.containsKey("weeks"))
+                config = config.withWeeks(Integer.parseInt(query.get("weeks")));
+            if (query.containsKey("hours"))
+                config = config.withHoursADay(Integer.parseInt(query.get("hours")));
+            if (query.containsKey("days"))
+                config = config.withDaysAWeek(Integer.parseInt(query.get("days")));
+            if (query.containsKey("mutation"))
+                config = config.withMutationRate(rate(query, "mutation"));
+            if (query.containsKey("crossover"))
+                config = config.withCrossoverRate(rate(query, "crossover"));
+        } catch (NumberFormatException ex) {
+            throw new IllegalArgumentException("Bad number: " + ex.getMessage());
+        }
+        if (config.getPopulationSize() < 2)
+            throw new IllegalArgumentException("population must be at least 2");
+        if (config.getWeeks() <= 0 || config.getHoursADay() <= 0 || config.getDaysAWeek() <= 0)
+            throw new IllegalArgumentException("weeks, hours and days must be positive");
+        config.termination(); // throws if no limit is set, the job would never end
+        return config;
+    }
+
+    /**
+     * @return the rate given for a parameter
+     * @throws IllegalArgumentException if it is not a number from 0 to 1
+     */
+    private static double rate(Map<String, String> query, String name) {
+        double rate = Double.parseDouble(query.get(name));
+        if (!(rate >= 0 && rate <= 1)) // also refuses NaN
+            throw new IllegalArgumentException(name + " must be from 0 to 1: " + rate);
+        return rate;
+    }
+
+    /**
+     * Splits an inline body into the three data files of a new temporary
+     * directory.
+     *
+     * @return the directory
+     */
+    private static Path writeInline(HttpExchange exchange) throws IOException {
+        StringBuilder[] sections = new StringBuilder[SECTIONS.length];
+        int current = -1;
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(
+                exchange.getRequestBody(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                String header = line.trim();
+                if (header.startsWith("[") && header.endsWith("]")) {
+                    current = indexOf(header.substring(1, header.length()-1).trim());
+                    if (sections[current] == null) sections[current] = new StringBuilder();
+                } else if (current >= 0) {
+                    sections[current].append(line).append('\n');
+                } else if (!header.isEmpty()) {
+                    throw new IllegalArgumentException("Data before the first [section]");
+                }
+            }
+        }
+        for (int i=0; i<SECTIONS.length; i++) {
+            if (sections[i] == null)
+                throw new IllegalArgumentException("No [" + SECTIONS[i] + "] section");
+        }
+
+        Path dir = Files.createTempDirectory("tutorscheduler");
+        for (int i=0; i<FILES.length; i++) {
+            Files.write(dir.resolve(FILES[i]),
+                    sections[i].toString().getBytes(StandardCharsets.UTF_8));
+        }
+        return dir;
+    }
+
+    private static int indexOf(String section) {
+        for (int i=0; i<SECTIONS.length; i++) {
+            if (SECTIONS[i].equalsIgnoreCase(section)) return i;
+        }
+        throw new IllegalArgumentException("Unknown section [" + section + "]");
+    }
+
+    /**
+     * Waits for a turn, then loads the job's data and evolves it.
+     */
+    private void runJob(Job job) {
+        try {
+            running.acquire();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            synchronized (job) {
+                if (job.state != State.QUEUED) return; // cancelled while waiting
+                queueSlots.release();
+                job.state = State.RUNNING;
+                job.started = System.nanoTime();
+            }
+            Data data = new Data(job.config);
+            if (job.inline != null) deleteInline(job.inline);
+            GeneticAlgorithm ga = new GeneticAlgorithm(data);
+            Schedule fittest = ga.run(new Population(data), 
+                    job.config.termination().stopWhen(() -> job.cancelled, "cancelled"),
+                    (generation, population, best) -> {
+                        job.generation = generation;
+                        job.fitness = best.getFitness();
+                    });
+            job.generation = ga.getGenerations();
+            job.fitness = fittest.getFitness();
+            job.stopReason = ga.getStopReason();
+            // finished is set before the state, which tells readers it is set
+            job.finished = System.nanoTime();
+            if (job.cancelled) {
+                job.state = State.CANCELLED;
+            } else {
+                job.result = fittest;
+                job.state = State.DONE;
+            }
+        } catch (RuntimeException ex) {
+            LOG.log(Level.WARNING, "Job " + job.id + " failed", ex);
+            job.error = String.valueOf(ex);
+            job.finished = System.nanoTime();
+            job.state = State.FAILED;
+        } finally {
+            running.release();
+        }
+    }
+
+    private static void deleteInline(Path dir) {
+        try {
+            for (String file : FILES) {
+                Files.deleteIfExists(dir.resolve(file));
+            }
+            Files.deleteIfExists(dir);
+        } catch (IOException ex) {
+            LOG.log(Level.WARNING, "Could not delete " + dir, ex);
+        }
+    }
+
+    private void list(HttpExchange exchange) throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (Job job : byId.values()) {
+            if (json.length() > 1) json.append(',');
+            json.append(job.toJson());
+        }
+        send(exchange, 200, "application/json", json.append(']').toString());
+    }
+
+    /**
+     * Sends the fittest schedule of a finished job.
+     */
+    private void result(HttpExchange exchange, Job job, String format) throws IOException {
+        if (job.state != State.DONE) {
+            send(exchange, 409, "text/plain", "Job " + job.id + " is " + job.state);
+            return;
+        }
+        ScheduleExporter exporter = ScheduleExporter.forFormat(format);
+        String type = format.equalsIgnoreCase("csv") ? "text/csv"
+                : format.equalsIgnoreCase("json") ? "application/json" : "text/html";
+        exchange.getResponseHeaders().set("Content-Type", type + "; charset=utf-8");
+        exchange.sendResponseHeaders(200, 0); // chunked
+        try (OutputStream out = exchange.getResponseBody()) {
+            exporter.export(job.result, out);
+        }
+    }
+
+    /**
+     * Cancels or forgets a job.  A queued job is cancelled and forgotten.  A
+     * running job is cancelled at the end of its current generation and kept,
+     * as cancelled, until it is evicted or deleted again.  A finished job is
+     * forgotten.
+     */
+    private void delete(HttpExchange exchange, Job job) throws IOException {
+        synchronized (job) {
+            if (job.state == State.RUNNING) {
+                job.cancelled = true;
+                send(exchange, 202, "application/json", job.toJson());
+                return;
+            }
+            if (job.state == State.QUEUED) {
+                job.state = State.CANCELLED;
+                job.finished = System.nanoTime();
+                queueSlots.release();
+                if (job.inline != null) deleteInline(job.inline);
+            }
+        }
+        byId.remove(job.id);
+        send(exchange, 204, null, null);
+    }
+
+    /**
+     * Forgets finished jobs RETAIN_MINUTES after they finished, and the
+     * oldest finished jobs beyond MAX_FINISHED.
+     */
+    private void evictFinished() {
+        long now = System.nanoTime();
+        long retain = TimeUnit.MINUTES.toNanos(RETAIN_MINUTES);
+        int finished = 0;
+        for (Job job : byId.values()) {
+            if (job.isFinished()) finished++;
+        }
+        // jobs are in order of id, so the oldest go first
+        for (Job job : byId.values()) {
+            if (!job.isFinished()) continue;
+            if (finished > MAX_FINISHED || now - job.finished > retain) {
+                byId.remove(job.id);
+                finished--;
+            }
+        }
+    }
+
+    private static Map<String, String> parseQuery(String query) {
+        Map<String, String> params = new HashMap<>();
+        if (query == null) return params;
+        try {
+            for (String pair : query.split("&")) {
+                int eq = pair.indexOf('=');
+                if (eq < 0) continue;
+                params.put(URLDecoder.decode(pair.substring(0, eq), "UTF-8"),
+                        URLDecoder.decode(pair.substring(eq + 1), "UTF-8"));
+            }
+        } catch (UnsupportedEncodingException ex) {
+            throw new IllegalStateException(ex); // UTF-8 is always supported
+        }
+        return params;
+    }
+
+    private static int parseId(String id) {
+        try {
+            return Integer.parseInt(id);
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String type, String body)
+            throws IOException {
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().set("Content-Type", type + "; charset=utf-8");
+        exchange.sendResponseHeaders(status, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * One scheduling run and its progress.  Fields are written by the job's
+     * thread and read by request threads.
+     */
+    private class Job {
+        private final int id;
+        private final RunConfig config;
+        private final Path inline; // temporary data directory, or null
+        private final long submitted = System.nanoTime();
+        private volatile State state = State.QUEUED;
+        private volatile boolean cancelled; // stop at the end of this generation
+        private volatile long started;
+        private volatile long finished;
+        private volatile int generation;
+        private volatile int fitness;
+        private volatile String stopReason;
+        private volatile String error;
+        private volatile Schedule result;
+
+        Job(int id, RunConfig config, Path inline) {
+            this.id = id;
+            this.config = config;
+            this.inline = inline;
+        }
+
+        /**
+         * @return true once the job is done, failed or was cancelled, and
+         * will not change again
+         */
+        private boolean isFinished() {
+            State now = state;
+            return now == State.DONE || now == State.FAILED || now == State.CANCELLED;
+        }
+
+        /**
+         * @return 1 plus the number of queued jobs ahead of this one
+         */
+        private int queuePosition() {
+            int position = 1;
+            for (Job other : byId.values()) {
+                if (other.id >= id) break; // in order of id
+                if (other.state == State.QUEUED) position++;
+            }
+            return position;
+        }
+
+        private String toJson() {
+            State now = state;
+            long end = isFinished() ? finished : System.nanoTime();
+            long millis = now == State.QUEUED || started == 0 ? 0
+                    : TimeUnit.NANOSECONDS.toMillis(end - started);
+            StringBuilder json = new StringBuilder();
+            json.append("{\"id\":").append(id)
+                .append(",\"state\":").append(JsonExporter.quote(now.name().toLowerCase()));
+            if (now == State.QUEUED) json.append(",\"queuePosition\":").append(queuePosition());
+            json.append(",\"generation\":").append(generation)
+                .append(",\"fitness\":").append(fitness)
+                .append(",\"millis\":").append(millis)
+                .append(",\"waitedMillis\":").append(TimeUnit.NANOSECONDS.toMillis(
+                        (now == State.QUEUED ? System.nanoTime() : started) - submitted));
+            if (stopReason != null) json.append(",\"stopReason\":").append(JsonExporter.quote(stopReason));
+            if (error != null) json.append(",\"error\":").append(JsonExporter.quote(error));
+            return json.append('}').toString();
+        }
+    }
+
+    /**
+     * Usage: ScheduleService [port [maxRunning [maxQueued]]]
+     * Serves until the JVM is stopped.  Defaults to port 8080, one running
+     * job per processor, and 100 queued jobs.
+     *
+     * @param args command line arguments
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 8080;
+        int maxRunning = args.length > 1 ? Integer.parseInt(args[1])
+                : Runtime.getRuntime().availableProcessors();
+        int maxQueued = args.length > 2 ? Integer.parseInt(args[2]) : 100;
+        ScheduleService service = new ScheduleService(port, maxRunning, maxQueued);
+        Runtime.getRuntime().addShutdownHook(new Thread(service::stop));
+        service.start();
+        System.out.println("Listening on http://localhost:" + service.getPort() + "/jobs");
+    }
+}
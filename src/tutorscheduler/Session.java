@@ -1,25 +1,45 @@
 package tutorscheduler;
 
 import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Each time slot in a schedule has a session in it.  
+ * Each time slot in a schedule has a session in it.  Schedules store each 
+ * session compactly as a single long (a gene) that packs the ids of the room,
+ * tutor and supervisor; Session objects are views of a gene used for 
+ * building and rendering schedules.
  * 
  * @author Stephanie Deen
  */
 class Session {
     
+    /** Gene of a dummy (empty) session. */
+    static final long EMPTY = 0L;
+    
+    // each id is stored plus one in its own 21 bit field, so EMPTY is all zeros
+    private static final int BITS = 21;
+    private static final long MASK = (1L << BITS) - 1;
+    
     private Component room;
     private Component tutor;
     private Component supervisor;
-    
-    Random rand = new Random();
 
     /**
      * Constructor for creating a session built of random components.
      * @param data 
      */
     public Session(Data data) {
+        this(data, ThreadLocalRandom.current());
+    }
+
+    /**
+     * Constructor for creating a session built of random components drawn
+     * from the given random stream.
+     * 
+     * @param data 
+     * @param rand random stream owned by the calling thread
+     */
+    public Session(Data data, Random rand) {
         // randomly select a room, tutor, supervisor
         int random = rand.nextInt(data.rooms.size());
         room = data.rooms.get(random);
@@ -44,6 +64,101 @@ class Session {
         this.supervisor = supervisor;
     }
 
+    /**
+     * Constructor for a view of a gene.
+     * 
+     * @param data data the gene's ids refer to
+     * @param gene packed session, or EMPTY for a dummy session
+     */
+    public Session(Data data, long gene) {
+        if (gene != EMPTY) {
+            room = data.rooms.get(room(gene));
+            tutor = data.tutors.get(tutor(gene));
+            supervisor = data.supervisors.get(supervisor(gene));
+        }
+    }
+    
+    /**
+     * Packs component ids into a gene.
+     * 
+     * @param room id of the room
+     * @param tutor id of the tutor
+     * @param supervisor id of the supervisor
+     * @return gene holding all three ids
+     */
+    static long encode(int room, int tutor, int supervisor) {
+        return ((room + 1L) << (2*BITS)) | ((tutor + 1L) << BITS) | (supervisor + 1L);
+    }
+    
+    /**
+     * Packs a session into a gene.  The session's components must come from 
+     * Data so that they have ids.
+     * 
+     * @param session session to pack, may be a dummy session or null
+     * @return gene for the session
+     */
+    static long encode(Session session) {
+        if (session == null || session.room == null) return EMPTY;
+        return encode(session.room.getId(), session.tutor.getId(), 
+                session.supervisor.getId());
+    }
+    
+    /**
+     * Draws a random session as a gene.
+     * 
+     * @param data data to pick components from
+     * @param rand random stream owned by the calling thread
+     * @return gene for a session of a random room, tutor and supervisor
+     */
+    static long randomGene(Data data, Random rand) {
+        return encode(rand.nextInt(data.rooms.size()), 
+                rand.nextInt(data.tutors.size()), 
+                rand.nextInt(data.supervisors.size()));
+    }
+    
+    /**
+     * Draws a random session as a gene from the rooms, tutors and supervisors
+     * available in a slot.  A role with nobody available in the slot falls 
+     * back to picking from everyone in that role.
+     * 
+     * @param data data to pick components from
+     * @param slot index of the slot the session is for
+     * @param rand random stream owned by the calling thread
+     * @return gene for a session that matches availability where possible
+     */
+    static long availableGene(Data data, int slot, Random rand) {
+        return encode(pick(data.roomsBySlot[slot], data.rooms.size(), rand),
+                pick(data.tutorsBySlot[slot], data.tutors.size(), rand),
+                pick(data.supervisorsBySlot[slot], data.supervisors.size(), rand));
+    }
+    
+    /**
+     * 
+     * @param candidates ids to pick from
+     * @param all number of components in the role
+     * @param rand random stream
+     * @return a random candidate, or any id if there are no candidates
+     */
+    static int pick(int[] candidates, int all, Random rand) {
+        if (candidates.length == 0) return rand.nextInt(all);
+        return candidates[rand.nextInt(candidates.length)];
+    }
+    
+    /** @return id of the room in a non empty gene */
+    static int room(long gene) {
+        return (int) ((gene >>> (2*BITS)) & MASK) - 1;
+    }
+    
+    /** @return id of the tutor in a non empty gene */
+    static int tutor(long gene) {
+        return (int) ((gene >>> BITS) & MASK) - 1;
+    }
+    
+    /** @return id of the supervisor in a non empty gene */
+    static int supervisor(long gene) {
+        return (int) (gene & MASK) - 1;
+    }
+
     public Component getRoom() {
         return room;
     }
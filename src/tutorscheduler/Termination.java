@@ -0,0 +1,104 @@
+package tutorscheduler;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Decides when a run of the genetic algorithm stops: after a number of
+ * generations, when a wall clock budget runs out, when a target fitness is
+ * reached, or when the best fitness has not improved for a number of
+ * generations.  Whichever happens first ends the run.  A limit of 0 or less
+ * is not checked, but at least one limit must be set, so that every run
+ * ends.
+ *
+ * @author Stephanie Deen
+ */
+public class Termination {
+
+    private final int maxGenerations;
+    private final long budgetNanos;
+    private final int targetFitness;
+    private final int stallGenerations;
+
+    /**
+     * Constructor
+     *
+     * @param maxGenerations most generations to evolve
+     * @param budgetMillis wall clock time the run may take, in milliseconds
+     * @param targetFitness fitness at which the run is good enough
+     * @param stallGenerations generations without improvement before giving up
+     * @throws IllegalArgumentException if no limit is more than 0
+     */
+    public Termination(int maxGenerations, long budgetMillis, int targetFitness,
+            int stallGenerations) {
+        if (maxGenerations <= 0 && budgetMillis <= 0 && targetFitness <= 0
+                && stallGenerations <= 0) {
+            throw new IllegalArgumentException(
+                    "No generation, time, fitness or stall limit is set, the run would never end");
+        }
+        this.maxGenerations = maxGenerations;
+        this.budgetNanos = TimeUnit.MILLISECONDS.toNanos(budgetMillis);
+        this.targetFitness = targetFitness;
+        this.stallGenerations = stallGenerations;
+    }
+
+    private Termination(Termination other) {
+        this.maxGenerations = other.maxGenerations;
+        this.budgetNanos = other.budgetNanos;
+        this.targetFitness = other.targetFitness;
+        this.stallGenerations = other.stallGenerations;
+    }
+
+    /**
+     * Constructor for a run of a fixed number of generations.
+     *
+     * @param maxGenerations number of generations to evolve
+     * @throws IllegalArgumentException if maxGenerations is not more than 0
+     */
+    public Termination(int maxGenerations) {
+        this(maxGenerations, 0, 0, 0);
+    }
+
+    /**
+     * Checks the limits in turn.
+     *
+     * @param generation number of generations evolved so far
+     * @param elapsedNanos time since the run started
+     * @param bestFitness best fitness found so far
+     * @param stalled generations since the best fitness last improved
+     * @return why the run should stop, or null if it should continue
+     */
+    public String check(int generation, long elapsedNanos, int bestFitness,
+            int stalled) {
+        if (targetFitness > 0 && bestFitness >= targetFitness)
+            return "reached fitness " + targetFitness;
+        if (maxGenerations > 0 && generation >= maxGenerations)
+            return "evolved " + maxGenerations + " generations";
+        if (budgetNanos > 0 && elapsedNanos >= budgetNanos)
+            return "used time budget of "
+                    + TimeUnit.NANOSECONDS.toMillis(budgetNanos) + " ms";
+        if (stallGenerations > 0 && stalled >= stallGenerations)
+            return "no improvement for " + stallGenerations + " generations";
+        return null;
+    }
+
+    /**
+     * A termination with the same limits that also stops the run as soon as
+     * a condition holds, so that a run can be cancelled from another thread.
+     *
+     * @param condition checked before the limits, each generation
+     * @param reason why the run stopped when the condition holds
+     * @return the new termination
+     */
+    public Termination stopWhen(BooleanSupplier condition, String reason) {
+        Termination limits = this;
+        return new Termination(this) {
+            @Override
+            public String check(int generation, long elapsedNanos, int bestFitness,
+                    int stalled) {
+                if (condition.getAsBoolean()) return reason;
+                return limits.check(generation, elapsedNanos, bestFitness, stalled);
+            }
+        };
+    }
+}
@@ -2,37 +2,185 @@ package tutorscheduler;
 
 import java.io.BufferedWriter;
 import java.io.File;
+import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.util.List;
 import java.util.Scanner;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 
 /**
+ * Command line entry point.  The settings below are the defaults every 
+ * RunConfig starts from.
  *
  * @author Stephanie Deen
  */
 public class TutorScheduler {
     
+    public static String WORKBOOK = null; // e.g. "src/Resources/availability.xlsx"
     public static int POPULATION_SIZE = 20;
+    public static int ELITES = 1; // fittest schedules kept unchanged each generation
     public static int GENERATIONS = 20;
+    public static long TIME_BUDGET_MILLIS = 0; // 0 for no time limit
+    public static int TARGET_FITNESS = 0; // 0 for no target
+    public static int STALL_GENERATIONS = 0; // 0 to never stop early
     public static int HOURS_A_DAY = 10;
     public static int HOURS_A_WEEK = 36;
     public static int DAYS_A_WEEK = 5;
+    public static int WEEKS = 1; // weeks a schedule covers
+    public static boolean GUIDED = true; // draw sessions from who is available
+    public static boolean ADAPTIVE = false; // adapt mutation to population diversity
+    public static boolean METRICS_LOG = false; // log each generation's metrics instead of printing it
+    public static int THREADS = 1; // more than 1 evolves children in parallel
+    public static int ISLANDS = 1; // more than 1 evolves populations side by side
+    public static int MIGRATION_INTERVAL = 5;
+    public static int MIGRANTS = 2;
+    public static int LOCAL_SEARCH_TOP_K = 0; // fittest children refined each generation
+    public static int LOCAL_SEARCH_STEPS = 50; // slots visited per refined child
+    public static String CHECKPOINT = null; // file to checkpoint runs to, null for none
+    public static int CHECKPOINT_GENERATIONS = 0; // 0 to not checkpoint by generation
+    public static long CHECKPOINT_SECONDS = 60; // 0 to not checkpoint by time
+    public static boolean RESUME = false; // continue the run in CHECKPOINT
+    public static String RESCHEDULE = null; // exported CSV to repair, null for a new run
+    public static boolean SOLVER = false; // build the schedule directly instead of evolving
+    public static boolean PARETO = false; // evolve the trade-offs between the objectives
 
+    /**
+     * Runs the scheduler.  With no arguments the user is asked for the name
+     * of the HTML file to save the fittest schedule to.  Otherwise the fittest
+     * schedule is written to each file named on the command line, in the 
+     * format given by its extension (.html, .csv or .json).
+     * 
+     * @param args files to export the fittest schedule to
+     */
     public static void main(String[] args) {
-        Data data = new Data();  // initialize app
-        GeneticAlgorithm ga = new GeneticAlgorithm(data);
-        Population population;
+        RunConfig config = RunConfig.defaults();
+        Data data = new Data(config);  // initialize app
+        Termination termination = config.termination();
+        
+        if (RESCHEDULE != null) {
+            // repair the slots of an exported schedule that the data broke
+            Schedule previous;
+            CsvImporter importer = new CsvImporter();
+            try (Reader in = new FileReader(RESCHEDULE)) {
+                previous = importer.read(in, data);
+            } catch (IOException e) {
+                System.out.println("Error: could not read " + RESCHEDULE + ": " + e.getMessage());
+                return;
+            }
+            Rescheduler rescheduler = new Rescheduler(data, previous, importer.getDroppedSlots());
+            Schedule fittest = rescheduler.run(termination);
+            System.out.println("Repaired " + rescheduler.getAffectedSlots().length 
+                    + " slots, Fittest " + fittest.getFitness());
+            output(fittest, args);
+            return;
+        }
+        
+        if (SOLVER) {
+            Schedule fittest = new AssignmentSolver(data).solve();
+            System.out.println("Solved, Fittest " + fittest.getFitness());
+            output(fittest, args);
+            return;
+        }
         
-        // create initial population
-        population = new Population(data);
+        if (PARETO) {
+            // one run gives every trade-off; list them and keep the fittest
+            List<Schedule> front = new Nsga2(data).run(termination);
+            Schedule fittest = front.get(0);
+            for (Schedule s : front) {
+                System.out.printf("Availability %.1f, Hours %.1f, Weeks %.1f, Fittest %d%n",
+                        s.availabilityScore(), s.hoursScore(), s.weeksScore(), s.getFitness());
+                if (s.getFitness() > fittest.getFitness()) fittest = s;
+            }
+            System.out.println("Pareto front of " + front.size() + ", Fittest " + fittest.getFitness());
+            output(fittest, args);
+            return;
+        }
+        
+        if (ISLANDS > 1) {
+            IslandModel islands = new IslandModel(data, ISLANDS, MIGRATION_INTERVAL, MIGRANTS);
+            Schedule fittest = islands.evolve(termination);
+            System.out.println("Islands " + ISLANDS + ", Fittest " + fittest.getFitness());
+            output(fittest, args);
+            return;
+        }
+        
+        ExecutorService executor = config.getThreads() > 1 
+                ? new ForkJoinPool(config.getThreads()) : null;
+        GeneticAlgorithm ga = new GeneticAlgorithm(data, executor);
+        // with the metrics log on, each generation is logged instead
+        GeneticAlgorithm.GenerationListener progress = config.isMetricsLog() ? null 
+                : (generation, population, best) -> {
+                    if (config.isAdaptive()) {
+                        System.out.printf("Generation %d, Fittest %d, Diversity %.3f, Mutation %.3f%n",
+                                generation, best.getFitness(), ga.getDiversity(), ga.getMutationRate());
+                    } else {
+                        System.out.println("Generation " + generation + ", Fittest " + best.getFitness());
+                    }
+                };
+        if (CHECKPOINT != null) {
+            ga.checkpointTo(new File(CHECKPOINT), CHECKPOINT_GENERATIONS, CHECKPOINT_SECONDS);
+        }
         
-        for (int i=0; i<GENERATIONS; i++) {
-            System.out.println("Generation " + i + ", Fittest " + population.getFittest().getFitness());
-            population = ga.evolve(population);
+        Schedule fittest;
+        if (RESUME) {
+            // continue the checkpointed run
+            Checkpoint checkpoint;
+            try {
+                checkpoint = Checkpoint.read(new File(CHECKPOINT), data);
+            } catch (IOException e) {
+                System.out.println("Error: could not resume " + CHECKPOINT + ": " + e.getMessage());
+                if (executor != null) executor.shutdown();
+                return;
+            }
+            fittest = ga.resume(checkpoint, termination, progress);
+        } else {
+            // create initial population and evolve it
+            fittest = ga.run(new Population(data), termination, progress);
         }
+        if (executor != null) executor.shutdown();
         
-        System.out.println("Generation " + GENERATIONS + ", Fittest " + population.getFittest().getFitness());
-        printHTML(population.getFittest().convertToHTML());
+        output(fittest, args);
+    }
+    
+    /**
+     * Saves a schedule to the files named on the command line, or asks for a
+     * file name if there are none.
+     * 
+     * @param schedule schedule to save
+     * @param files names of files to save to
+     */
+    private static void output(Schedule schedule, String[] files) {
+        if (files.length == 0) {
+            printHTML(schedule.convertToHTML());
+            return;
+        }
+        for (String file : files) {
+            try {
+                export(schedule, new File(file));
+            } catch (IOException | IllegalArgumentException e) {
+                System.out.println("Error: could not write " + file + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Writes a schedule to a file in the format given by the file's extension.
+     * 
+     * @param schedule schedule to write
+     * @param file .html, .csv or .json file
+     * @throws IOException if the file cannot be written
+     * @throws IllegalArgumentException if the extension is not a known format
+     */
+    public static void export(Schedule schedule, File file) throws IOException {
+        String name = file.getName();
+        ScheduleExporter exporter = ScheduleExporter.forFormat(
+                name.substring(name.lastIndexOf('.') + 1));
+        try (BufferedWriter bw = new BufferedWriter(new FileWriter(file))) {
+            exporter.export(schedule, bw);
+        }
     }
     
     /**
@@ -0,0 +1,213 @@
+package tutorscheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+/**
+ * Reads availability from a coordinator's workbook, like
+ * src/Resources/availability.xlsx, without converting it to text files.
+ * Each sheet is one person, named by the sheet, and holds a grid of the
+ * week's slot numbers with the slots the person is available in set in
+ * bold.  The sheets are streamed straight out of the zip with StAX, so
+ * memory use does not grow with the size of a sheet.
+ *
+ * @author Stephanie Deen
+ */
+class XlsxReader {
+
+    private static final Logger LOG = Logger.getLogger(XlsxReader.class.getName());
+    private static final String REL_NS =
+            "http://schemas.openxmlformats.org/officeDocument/2006/relationships";
+
+    /**
+     * Receives the availability read from each sheet.
+     */
+    interface SheetHandler {
+        /**
+         * @param name name of the sheet, which is the person's name
+         * @param times slots the person is available in, valid up to count
+         * @param count number of times
+         */
+        void sheet(String name, int[] times, int count);
+    }
+
+    private final XMLInputFactory factory;
+
+    XlsxReader() {
+        factory = XMLInputFactory.newInstance();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * Reads every sheet of a workbook, in the workbook's order.
+     *
+     * @param workbook .xlsx file to read
+     * @param handler receives each sheet's availability
+     * @throws IOException if the file cannot be read or is not a workbook
+     */
+    void read(File workbook, SheetHandler handler) throws IOException {
+        try (ZipFile zip = new ZipFile(workbook)) {
+            Map<String, String> targets = readRelationships(zip);
+            BitSet bold = readBoldStyles(zip);
+
+            // sheet names and the relationship id of each, in tab order
+            List<String[]> sheets = new ArrayList<>();
+            try (InputStream in = open(zip, "xl/workbook.xml")) {
+                XMLStreamReader xml = factory.createXMLStreamReader(in);
+                while (xml.hasNext()) {
+                    if (xml.next() == XMLStreamConstants.START_ELEMENT
+                            && xml.getLocalName().equals("sheet")) {
+                        sheets.add(new String[] {xml.getAttributeValue(null, "name"),
+                                xml.getAttributeValue(REL_NS, "id")});
+                    }
+                }
+                xml.close();
+            }
+
+            int[] times = new int[64];
+            for (String[] sheet : sheets) {
+                String target = targets.get(sheet[1]);
+                if (target == null) {
+                    LOG.log(Level.WARNING, "{0}: no part for sheet {1}",
+                            new Object[] {workbook, sheet[0]});
+                    continue;
+                }
+                String part = target.startsWith("/") ? target.substring(1) : "xl/" + target;
+                try (InputStream in = open(zip, part)) {
+                    times = readSheet(in, bold, times, sheet[0], handler);
+                }
+            }
+        } catch (XMLStreamException ex) {
+            throw new IOException(workbook + " is not a readable workbook", ex);
+        }
+    }
+
+    /**
+     * Streams one sheet, collecting the values of its bold number cells.
+     *
+     * @param in the sheet's XML
+     * @param bold styles that are bold
+     * @param times buffer for the times, reused between sheets
+     * @param name name of the sheet
+     * @param handler receives the sheet's availability
+     * @return the buffer, which may have grown
+     * @throws XMLStreamException if the sheet is not well formed
+     */
+    private int[] readSheet(InputStream in, BitSet bold, int[] times, String name,
+            SheetHandler handler) throws XMLStreamException {
+        XMLStreamReader xml = factory.createXMLStreamReader(in);
+        int count = 0;
+        boolean wanted = false; // in a bold number cell
+        while (xml.hasNext()) {
+            int event = xml.next();
+            if (event != XMLStreamConstants.START_ELEMENT) continue;
+            String element = xml.getLocalName();
+            if (element.equals("c")) {
+                String type = xml.getAttributeValue(null, "t");
+                String style = xml.getAttributeValue(null, "s");
+                wanted = (type == null || type.equals("n"))
+                        && style != null && bold.get(Integer.parseInt(style));
+            } else if (element.equals("v") && wanted) {
+                String value = xml.getElementText().trim();
+                wanted = false;
+                int slot;
+                try {
+                    double number = Double.parseDouble(value);
+                    slot = (int) number;
+                    if (slot != number || slot < 0) throw new NumberFormatException();
+                } catch (NumberFormatException ex) {
+                    LOG.log(Level.WARNING, "Sheet {0}: skipping bold cell {1}, not a slot",
+                            new Object[] {name, value});
+                    continue;
+                }
+                if (count == times.length) times = Arrays.copyOf(times, times.length*2);
+                times[count++] = slot;
+            }
+        }
+        xml.close();
+        handler.sheet(name, times, count);
+        return times;
+    }
+
+    /**
+     * @return target of each of the workbook's relationships, by id
+     */
+    private Map<String, String> readRelationships(ZipFile zip)
+            throws IOException, XMLStreamException {
+        Map<String, String> targets = new HashMap<>();
+        try (InputStream in = open(zip, "xl/_rels/workbook.xml.rels")) {
+            XMLStreamReader xml = factory.createXMLStreamReader(in);
+            while (xml.hasNext()) {
+                if (xml.next() == XMLStreamConstants.START_ELEMENT
+                        && xml.getLocalName().equals("Relationship")) {
+                    targets.put(xml.getAttributeValue(null, "Id"),
+                            xml.getAttributeValue(null, "Target"));
+                }
+            }
+            xml.close();
+        }
+        return targets;
+    }
+
+    /**
+     * @return indexes of the cell styles whose font is bold
+     */
+    private BitSet readBoldStyles(ZipFile zip) throws IOException, XMLStreamException {
+        BitSet boldFonts = new BitSet();
+        BitSet boldStyles = new BitSet();
+        if (zip.getEntry("xl/styles.xml") == null) return boldStyles;
+        try (InputStream in = open(zip, "xl/styles.xml")) {
+            XMLStreamReader xml = factory.createXMLStreamReader(in);
+            int font = -1;
+            int style = -1;
+            String section = "";
+            while (xml.hasNext()) {
+                int event = xml.next();
+                if (event == XMLStreamConstants.END_ELEMENT) {
+                    if (xml.getLocalName().equals(section)) section = "";
+                    continue;
+                }
+                if (event != XMLStreamConstants.START_ELEMENT) continue;
+                String element = xml.getLocalName();
+                if (element.equals("fonts") || element.equals("cellXfs")) {
+                    section = element;
+                } else if (section.equals("fonts") && element.equals("font")) {
+                    font++;
+                } else if (section.equals("fonts") && element.equals("b")) {
+                    String val = xml.getAttributeValue(null, "val");
+                    if (val == null || val.equals("1") || val.equals("true")) boldFonts.set(font);
+                } else if (section.equals("cellXfs") && element.equals("xf")) {
+                    style++;
+                    String fontId = xml.getAttributeValue(null, "fontId");
+                    if (fontId != null && boldFonts.get(Integer.parseInt(fontId))) {
+                        boldStyles.set(style);
+                    }
+                }
+            }
+            xml.close();
+        }
+        return boldStyles;
+    }
+
+    private static InputStream open(ZipFile zip, String name) throws IOException {
+        ZipEntry entry = zip.getEntry(name);
+        if (entry == null) throw new IOException(zip.getName() + " has no " + name);
+        return zip.getInputStream(entry);
+    }
+}
@@ -0,0 +1,118 @@
+package tutorscheduler;
+
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Regression check that the fitness and hash setGene keeps up to date as
+ * slots change match ones worked out from scratch from the genes.  Makes
+ * random changes to random schedules and to copies of them, which share
+ * their totals until the first change, over one week and over several.
+ * Runs with plain java and needs no test library; exits with status 1 on
+ * the first mismatch.
+ *
+ * @author Stephanie Deen
+ */
+public class FitnessCheck {
+
+    private static final long SEED = 5;
+    private static final int SCHEDULES = 50;
+    private static final int CHANGES = 2000; // changes to each schedule
+
+    /**
+     * @param args data directory, or none for src/Resources
+     */
+    public static void main(String[] args) {
+        Random rand = new Random(SEED);
+        for (int weeks=1; weeks<=3; weeks+=2) {
+            RunConfig config = RunConfig.defaults().withWeeks(weeks);
+            if (args.length > 0) config = config.withDataPath(args[0]);
+            Data data = new Data(config);
+            for (int n=0; n<SCHEDULES; n++) {
+                Schedule s = new Schedule(data, true);
+                check(s, data, "new schedule");
+                Schedule copy = new Schedule(s);
+                for (int c=0; c<CHANGES; c++) {
+                    // changes to the copy must not leak into the original
+                    Schedule changed = rand.nextBoolean() ? s : copy;
+                    int i = rand.nextInt(changed.size());
+                    long gene = rand.nextInt(4) == 0 ? Session.EMPTY
+                            : Session.randomGene(data, rand);
+                    changed.setGene(gene, i);
+                    check(changed, data, "change " + c + " of schedule " + n + ", " + weeks + " weeks");
+                }
+                check(s, data, "original after changes to its copy");
+            }
+        }
+        System.out.println("OK: fitness and hash match the reference");
+    }
+
+    private static void check(Schedule s, Data data, String where) {
+        int expected = referenceFitness(s, data);
+        if (s.getFitness() != expected) {
+            fail(where + ": fitness " + s.getFitness() + ", reference " + expected);
+        }
+        // the same genes set in reverse order must hash the same
+        Schedule rebuilt = new Schedule(data, false);
+        for (int i=s.size()-1; i>=0; i--) {
+            rebuilt.setGene(s.getGene(i), i);
+        }
+        if (rebuilt.hash() != s.hash()) {
+            fail(where + ": hash " + s.hash() + ", rebuilt " + rebuilt.hash());
+        }
+    }
+
+    /**
+     * Fitness worked out in one pass over every slot, as calcFitness did
+     * before the totals were kept by setGene.
+     */
+    private static int referenceFitness(Schedule s, Data data) {
+        RunConfig config = data.config;
+        int weeks = config.getWeeks();
+        int[][] tutorHours = new int[data.tutors.size()][weeks];
+        int[][] supervisorHours = new int[data.supervisors.size()][weeks];
+        int[] weekSessions = new int[weeks];
+        int match = 0, sessions = 0;
+        for (int i=0; i<s.size(); i++) {
+            long gene = s.getGene(i);
+            if (gene == Session.EMPTY) continue;
+            Component tutor = data.tutors.get(Session.tutor(gene));
+            Component supervisor = data.supervisors.get(Session.supervisor(gene));
+            if (tutor.isAvailable(i)) match++;
+            if (supervisor.isAvailable(i)) match++;
+            if (data.rooms.get(Session.room(gene)).isAvailable(i)) match++;
+            sessions++;
+            int week = i / config.slotsPerWeek();
+            weekSessions[week]++;
+            tutorHours[tutor.getId()][week]++;
+            supervisorHours[supervisor.getId()][week]++;
+        }
+        int score = sessions == 0 ? 0 : (100*match)/(sessions*3);
+        int weeksWithin = 0;
+        for (int week=0; week<weeks; week++) {
+            if (weekSessions[week] <= config.getHoursAWeek()) weeksWithin++;
+        }
+        int maxHoursScore = (100*weeksWithin)/weeks;
+        int good = goodHours(tutorHours, data.tutors) + goodHours(supervisorHours, data.supervisors);
+        int hours = (100*good)/((data.tutors.size() + data.supervisors.size())*weeks);
+        return (score + hours + maxHoursScore)/3;
+    }
+
+    /**
+     * @return people and weeks with more than 0 and under max hours
+     */
+    private static int goodHours(int[][] hours, List<Component> people) {
+        int good = 0;
+        for (int p=0; p<hours.length; p++) {
+            for (int h : hours[p]) {
+                if (h > 0 && h < people.get(p).getMaxHours()) good++;
+            }
+        }
+        return good;
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
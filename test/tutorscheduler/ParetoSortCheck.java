@@ -0,0 +1,105 @@
+package tutorscheduler;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Regression check that Nsga2.sortFronts puts schedules in the same fronts
+ * as comparing every pair does.  The reference peels off the schedules no
+ * other remaining schedule dominates, front by front.  Populations include
+ * copies, so schedules with equal scores are covered.  Runs with plain java
+ * and needs no test library; exits with status 1 on the first mismatch.
+ *
+ * @author Stephanie Deen
+ */
+public class ParetoSortCheck {
+
+    private static final long SEED = 3;
+    private static final int TRIALS = 300;
+
+    /**
+     * @param args data directory, or none for src/Resources
+     */
+    public static void main(String[] args) {
+        RunConfig config = RunConfig.defaults();
+        if (args.length > 0) config = config.withDataPath(args[0]);
+        Data data = new Data(config);
+        Random rand = new Random(SEED);
+
+        for (int t=0; t<TRIALS; t++) {
+            int size = 1 + rand.nextInt(120);
+            Schedule[] schedules = new Schedule[size];
+            for (int i=0; i<size; i++) {
+                schedules[i] = i > 0 && rand.nextInt(5) == 0
+                        ? new Schedule(schedules[rand.nextInt(i)])
+                        : new Schedule(data, true);
+            }
+            List<Set<Integer>> expected = referenceFronts(schedules);
+            List<List<Integer>> fronts = Nsga2.sortFronts(schedules);
+            if (fronts.size() != expected.size()) {
+                fail("trial " + t + ": " + fronts.size() + " fronts, reference "
+                        + expected.size());
+            }
+            for (int f=0; f<fronts.size(); f++) {
+                Set<Integer> front = new HashSet<>(fronts.get(f));
+                if (front.size() != fronts.get(f).size() || !front.equals(expected.get(f))) {
+                    fail("trial " + t + ": front " + f + " is " + fronts.get(f)
+                            + ", reference " + expected.get(f));
+                }
+            }
+        }
+        System.out.println("OK: sortFronts matches pairwise domination");
+    }
+
+    /**
+     * Sorts into fronts by comparing every remaining pair, O(n^3) at worst.
+     */
+    private static List<Set<Integer>> referenceFronts(Schedule[] schedules) {
+        int n = schedules.length;
+        double[][] objectives = new double[n][];
+        for (int i=0; i<n; i++) {
+            Schedule s = schedules[i];
+            objectives[i] = new double[] {s.availabilityScore(), s.hoursScore(), s.weeksScore()};
+        }
+        Set<Integer> remaining = new HashSet<>();
+        for (int i=0; i<n; i++) remaining.add(i);
+        List<Set<Integer>> fronts = new ArrayList<>();
+        while (!remaining.isEmpty()) {
+            Set<Integer> front = new HashSet<>();
+            for (int i : remaining) {
+                boolean dominated = false;
+                for (int j : remaining) {
+                    if (dominates(objectives[j], objectives[i])) {
+                        dominated = true;
+                        break;
+                    }
+                }
+                if (!dominated) front.add(i);
+            }
+            remaining.removeAll(front);
+            fronts.add(front);
+        }
+        return fronts;
+    }
+
+    /**
+     * @return true if a is no worse than b on every objective and better on
+     * at least one
+     */
+    private static boolean dominates(double[] a, double[] b) {
+        boolean noWorse = true, better = false;
+        for (int m=0; m<a.length; m++) {
+            noWorse &= a[m] >= b[m];
+            better |= a[m] > b[m];
+        }
+        return noWorse && better;
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}
@@ -0,0 +1,71 @@
+package tutorscheduler;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Random;
+
+/**
+ * Regression check that a run resumed from a checkpoint continues exactly
+ * as the uninterrupted run does, with checkpointing on in both, as
+ * TutorScheduler.main runs them.  Runs with plain java and needs no test
+ * library; exits with status 1 if the final populations differ.
+ *
+ * @author Stephanie Deen
+ */
+public class ResumeCheck {
+
+    private static final long SEED = 7;
+    private static final int EVERY = 10; // generations between checkpoints
+
+    /**
+     * @param args data directory, or none for src/Resources
+     * @throws IOException if a checkpoint cannot be written or read
+     */
+    public static void main(String[] args) throws IOException {
+        RunConfig config = RunConfig.defaults().withPopulationSize(30);
+        if (args.length > 0) config = config.withDataPath(args[0]);
+        Data data = new Data(config);
+        Population start = new Population(data);
+        File dir = Files.createTempDirectory("resumecheck").toFile();
+
+        // uninterrupted run of 4 stretches
+        GeneticAlgorithm whole = new GeneticAlgorithm(data);
+        whole.rand = new Random(SEED);
+        whole.checkpointTo(new File(dir, "whole.bin"), EVERY, 0);
+        whole.run(copy(start), new Termination(4*EVERY), null);
+
+        // the same run stopped after 2 stretches, then resumed
+        File stopped = new File(dir, "stopped.bin");
+        GeneticAlgorithm first = new GeneticAlgorithm(data);
+        first.rand = new Random(SEED);
+        first.checkpointTo(stopped, EVERY, 0);
+        first.run(copy(start), new Termination(2*EVERY), null);
+        GeneticAlgorithm second = new GeneticAlgorithm(data);
+        second.checkpointTo(new File(dir, "resumed.bin"), EVERY, 0);
+        second.resume(Checkpoint.read(stopped, data), new Termination(4*EVERY), null);
+
+        int differ = 0;
+        for (int i=0; i<start.size(); i++) {
+            if (whole.getPopulation().getSchedule(i).hash()
+                    != second.getPopulation().getSchedule(i).hash()) differ++;
+        }
+        for (File f : dir.listFiles()) f.delete();
+        dir.delete();
+
+        if (differ > 0) {
+            System.out.println("FAILED: " + differ + " schedules differ from the uninterrupted run");
+            System.exit(1);
+        }
+        System.out.println("OK: resumed run matches the uninterrupted run");
+    }
+
+    private static Population copy(Population population) {
+        Population copy = new Population();
+        for (int i=0; i<population.size(); i++) {
+            copy.addSchedule(new Schedule(population.getSchedule(i)));
+        }
+        copy.findFittest();
+        return copy;
+    }
+}
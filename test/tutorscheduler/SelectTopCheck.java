@@ -0,0 +1,89 @@
+package tutorscheduler;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Regression check that Population.selectTop picks the same fittest
+ * schedules a full sort does.  For random populations, with many schedules
+ * tied on fitness and in sorted, reversed and shuffled order, the k fittest
+ * of the first n must come first, with the fitnesses the sort puts there,
+ * and the schedules from n on must not move.  Runs with plain java and needs
+ * no test library; exits with status 1 on the first mismatch.
+ *
+ * @author Stephanie Deen
+ */
+public class SelectTopCheck {
+
+    private static final long SEED = 11;
+    private static final int TRIALS = 2000;
+
+    /**
+     * @param args data directory, or none for src/Resources
+     */
+    public static void main(String[] args) {
+        RunConfig config = RunConfig.defaults();
+        if (args.length > 0) config = config.withDataPath(args[0]);
+        Data data = new Data(config);
+        Random rand = new Random(SEED);
+        List<Schedule> pool = new ArrayList<>();
+        for (int i=0; i<200; i++) {
+            pool.add(new Schedule(data, true));
+        }
+
+        for (int t=0; t<TRIALS; t++) {
+            int size = 1 + rand.nextInt(pool.size());
+            Population population = new Population();
+            for (int i=0; i<size; i++) {
+                population.addSchedule(pool.get(rand.nextInt(pool.size())));
+            }
+            if (t % 3 == 1) population.sort();
+            if (t % 3 == 2) Collections.reverse(population.population);
+            int n = 1 + rand.nextInt(size);
+            int k = rand.nextInt(n + 1);
+
+            List<Schedule> before = new ArrayList<>(population.population);
+            List<Integer> expected = new ArrayList<>();
+            for (int i=0; i<n; i++) {
+                expected.add(before.get(i).getFitness());
+            }
+            expected.sort(Collections.reverseOrder());
+
+            population.selectTop(k, n);
+            check(population, before, expected, k, n, "trial " + t);
+        }
+        System.out.println("OK: selectTop matches a full sort");
+    }
+
+    private static void check(Population population, List<Schedule> before,
+            List<Integer> sorted, int k, int n, String where) {
+        List<Schedule> after = population.population;
+        // the same schedules, none lost or doubled
+        IdentityHashMap<Schedule, Integer> count = new IdentityHashMap<>();
+        for (Schedule s : before) count.merge(s, 1, Integer::sum);
+        for (Schedule s : after) count.merge(s, -1, Integer::sum);
+        for (int c : count.values()) {
+            if (c != 0) fail(where + ": schedules were lost or doubled");
+        }
+        for (int i=n; i<after.size(); i++) {
+            if (after.get(i) != before.get(i)) fail(where + ": schedule " + i + " past n moved");
+        }
+        List<Integer> top = new ArrayList<>();
+        for (int i=0; i<k; i++) {
+            top.add(after.get(i).getFitness());
+        }
+        top.sort(Collections.reverseOrder());
+        if (!top.equals(sorted.subList(0, k))) {
+            fail(where + ": top " + k + " of " + n + " are " + top + ", sorted "
+                    + sorted.subList(0, k));
+        }
+    }
+
+    private static void fail(String message) {
+        System.out.println("FAILED: " + message);
+        System.exit(1);
+    }
+}